@@ -1,110 +1,205 @@
-package cloud.workflowScheduling;
-
-import java.io.*;
-import java.math.*;
-import org.apache.commons.math3.stat.*;
-
-import cloud.workflowScheduling.methods.*;
-import cloud.workflowScheduling.setting.*;
-/*
- * Please download the DAX workflow archive from 
- * https://download.pegasus.isi.edu/misc/SyntheticWorkflows.tar.gz, 
- * unzip it and keep the DAX workflows in an appropriate position before running.
- */
-public class Evaluate {
-	//because in Java float numbers can not be precisely stored, a very small number E is added before testing whether deadline is met
-	public static final double E = 0.0000001; 
-	
-	//deadline factor.    tight, 0.005:0.005:0.05; loose, 0.05:0.05:0.5
-	private static final double DF_START = 0.005, DF_INCR = 0.005, DF_END=0.05;	
-	private static final int FILE_INDEX_MAX = 5;
-	private static final int[] SIZES = { 50, 100, 500};		//50, 100, 500
-	//new ICPCP(), new PSO(), new ProLiS(1.5),new LACO()
-	//new ProLiS(1), new ProLiS(1.5), new ProLiS(2), new ProLiS(4), new ProLiS(8), new ProLiS(Double.MAX_VALUE)
-	private static final Scheduler[] METHODS = {new ICPCP(), new PSO(), new ProLiS(1.5),new LACO() };
-	//"GENOME", "CYBERSHAKE", "LIGO", "MONTAGE"    floodplainУһ
-	private static final String[] WORKFLOWS = { "GENOME", "CYBERSHAKE", "LIGO", "MONTAGE"};
-	
-	static final String WORKFLOW_LOCATION = "E:\\dax";
-	static final String OUTPUT_LOCATION = "F:";
-	
-	public static void main(String[] args)throws Exception{
-		int deadlineNum = (int)((DF_END-DF_START)/DF_INCR + 1);
-		
-		for(String workflow : WORKFLOWS){
-			//three dimensions of these two arrays correspond to deadlines, methods, files, respectively
-			double[][][] successResult = new double[deadlineNum][METHODS.length][FILE_INDEX_MAX * SIZES.length];
-			double[][][] NCResult = new double[deadlineNum][METHODS.length][FILE_INDEX_MAX * SIZES.length]; 
-			double[] refValues = new double[4];		//store cost and time of fastSchedule and cheapSchedule
-			
-			for(int di = 0; di<=(DF_END-DF_START)/DF_INCR; di++){	// deadline index
-				for(int si = 0; si <SIZES.length; si++){			// size index
-					int size = SIZES[si];
-					for(int fi = 0;fi<FILE_INDEX_MAX;fi++){			//workflow file index
-						String file = WORKFLOW_LOCATION + "\\" + workflow + "\\" + workflow + ".n." + size + "." + fi + ".dax";
-						test(file, di, fi, si, successResult, NCResult, refValues);
-					}
-				}
-			}
-			BufferedWriter bw = new BufferedWriter(new FileWriter(OUTPUT_LOCATION + "\\" + workflow + ".txt"));
-			bw.write("used methods: ");
-			for(Scheduler s:METHODS)
-				bw.write(s.getClass().getSimpleName()+"\t");
-			bw.write("\r\n\r\n");
-			printTo(bw, successResult, "success ratio");
-			printTo(bw, NCResult, "normalized cost");
-
-			bw.write("reference values (CF, MF, CC, MC)\r\n");
-			double divider = SIZES.length * FILE_INDEX_MAX * deadlineNum;
-			for(double refValue : refValues)
-				bw.write(refValue / divider + "\t");
-			bw.close();	
-		}
-	}
-	
-	private static void test(String file, int di, int fi, int si, double[][][] successResult,
-			double[][][] NCResult, double[] refValues){
-		Workflow wf = new Workflow(file);	
-		Benchmarks benSched = new Benchmarks(wf);
-		System.out.println("Benchmark-FastSchedule" + benSched.getFastSchedule());
-		System.out.println("Benchmark-CheapSchedule" + benSched.getCheapSchedule());
-		
-		double deadlineFactor = DF_START + DF_INCR * di; 
-		double deadline = benSched.getFastSchedule().calcMakespan() + (benSched.getCheapSchedule().calcMakespan()
-				- benSched.getFastSchedule().calcMakespan())* deadlineFactor;
-
-		for(int mi=0;mi<METHODS.length;mi++){		//method index
-			Scheduler method = METHODS[mi];
-			wf.setDeadline(deadline);	
-			System.out.println("The current algorithm: " + method.getClass().getCanonicalName());
-
-			Solution sol = method.schedule(wf);
-			if(sol == null)
-				continue;
-			int isSatisfied = sol.calcMakespan()<=deadline + E ? 1 : 0;
-			if(sol.validate(wf) == false)
-				throw new RuntimeException();
-			System.out.println(sol);
-			successResult[di][mi][fi + si*FILE_INDEX_MAX] += isSatisfied;
-			NCResult[di][mi][fi + si*FILE_INDEX_MAX] += sol.calcCost() / benSched.getCheapSchedule().calcCost();
-		}
-		refValues[0]+=benSched.getFastSchedule().calcCost();
-		refValues[1]+=benSched.getFastSchedule().calcMakespan();
-		refValues[2]+=benSched.getCheapSchedule().calcCost();
-		refValues[3]+=benSched.getCheapSchedule().calcMakespan();
-	}
-	
-	private static final java.text.DecimalFormat df = new java.text.DecimalFormat("0.000");
-	static {df.setRoundingMode(RoundingMode.HALF_UP); }
-	private static void printTo(BufferedWriter bw, double[][][] result, String resultName)throws Exception{
-		bw.write(resultName + "\r\n");
-		for(int di = 0;di<=(DF_END-DF_START)/DF_INCR;di++){
-			String text = df.format(DF_START + DF_INCR * di) + "\t";
-			for(int mi=0;mi<METHODS.length;mi++)
-				text += df.format(StatUtils.mean(result[di][mi])) + "\t";
-			bw.write(text + "\r\n");
-			bw.flush();
-		}
-		bw.write("\r\n\r\n\r\n");
-	}
+package cloud.workflowScheduling;
+
+import java.io.*;
+import java.math.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.apache.commons.math3.stat.*;
+
+import cloud.workflowScheduling.methods.*;
+import cloud.workflowScheduling.monitor.*;
+import cloud.workflowScheduling.setting.*;
+/*
+ * Please download the DAX workflow archive from 
+ * https://download.pegasus.isi.edu/misc/SyntheticWorkflows.tar.gz, 
+ * unzip it and keep the DAX workflows in an appropriate position before running.
+ */
+public class Evaluate {
+	//because in Java float numbers can not be precisely stored, a very small number E is added before testing whether deadline is met
+	public static final double E = 0.0000001; 
+	
+	//deadline factor.    tight, 0.005:0.005:0.05; loose, 0.05:0.05:0.5
+	private static final double DF_START = 0.005, DF_INCR = 0.005, DF_END=0.05;	
+	private static final int FILE_INDEX_MAX = 5;
+	private static final int[] SIZES = { 50, 100, 500};		//50, 100, 500
+	//new ICPCP(), new PSO(), new ProLiS(1.5),new LACO()
+	//new ProLiS(1), new ProLiS(1.5), new ProLiS(2), new ProLiS(4), new ProLiS(8), new ProLiS(Double.MAX_VALUE)
+	static Scheduler[] createMethods(){		//each cell creates its own schedulers, as they can not be shared among threads
+		return new Scheduler[]{new ICPCP(), new PSO(), new ProLiS(1.5),new LACO() };
+	}
+	private static final Scheduler[] METHODS = createMethods();		//only used for names of methods
+	//"GENOME", "CYBERSHAKE", "LIGO", "MONTAGE"    floodplain是两个两个并行，最后一个输出
+	private static final String[] WORKFLOWS = { "GENOME", "CYBERSHAKE", "LIGO", "MONTAGE"};
+	
+	//can be set by system properties, e.g., java -Dworkflow.location=/data/dax -Dthreads=64 -Dseed=1 ...
+	static final String WORKFLOW_LOCATION = System.getProperty("workflow.location", "E:\\dax");
+	static final String OUTPUT_LOCATION = System.getProperty("output.location", "F:");
+	private static final int THREADS = Integer.getInteger("threads", Runtime.getRuntime().availableProcessors());
+	private static final long SEED = Long.getLong("seed", 0);
+	//events of Monitor are written to this CSV file if it is set, e.g., -Dmonitor.csv=/data/monitor.csv
+	private static final String MONITOR_CSV = System.getProperty("monitor.csv");
+	
+	public static void main(String[] args)throws Exception{
+		CsvExporter exporter = null;
+		if(MONITOR_CSV != null){
+			exporter = new CsvExporter(new File(MONITOR_CSV));
+			Monitor.addListener(exporter);
+		}
+		int deadlineNum = (int)((DF_END-DF_START)/DF_INCR + 1);
+		
+		for(int wi = 0; wi < WORKFLOWS.length; wi++){
+			String workflow = WORKFLOWS[wi];
+			//three dimensions of these two arrays correspond to deadlines, methods, files, respectively
+			double[][][] successResult = new double[deadlineNum][METHODS.length][FILE_INDEX_MAX * SIZES.length];
+			double[][][] NCResult = new double[deadlineNum][METHODS.length][FILE_INDEX_MAX * SIZES.length]; 
+			double[] refValues = new double[4];		//store cost and time of fastSchedule and cheapSchedule
+			
+			List<FileCase> fileCases = new ArrayList<FileCase>();		//indexed by fi + si*FILE_INDEX_MAX
+			for(int si = 0; si <SIZES.length; si++)
+				for(int fi = 0;fi<FILE_INDEX_MAX;fi++)
+					fileCases.add(new FileCase(workflowFile(workflow, SIZES[si], fi)));
+			fileCases = GridRunner.run(fileCases, THREADS);
+			
+			List<Cell> cells = new ArrayList<Cell>();
+			for(int di = 0; di<=(DF_END-DF_START)/DF_INCR; di++){	// deadline index
+				for(int si = 0; si <SIZES.length; si++){			// size index
+					for(int fi = 0;fi<FILE_INDEX_MAX;fi++){			//workflow file index
+						int column = fi + si*FILE_INDEX_MAX;
+						for(int mi=0;mi<METHODS.length;mi++)		//method index
+							cells.add(new Cell(fileCases.get(column), di, column, mi, GridRunner.cellSeed(SEED, wi, di, si, fi, mi)));
+					}
+				}
+			}
+			List<Cell> results = GridRunner.run(cells, THREADS);
+			for(Cell cell : results){			//aggregate in the order of cells, i.e., the order of the nested loops
+				if(cell.mi == 0)
+					for(int k = 0; k < refValues.length; k++)
+						refValues[k] += cell.fileCase.refValues[k];
+				if(cell.hasSolution){
+					successResult[cell.di][cell.mi][cell.column] += cell.isSatisfied;
+					NCResult[cell.di][cell.mi][cell.column] += cell.normalizedCost;
+				}
+			}
+			BufferedWriter bw = new BufferedWriter(new FileWriter(new File(OUTPUT_LOCATION, workflow + ".txt")));
+			bw.write("used methods: ");
+			for(Scheduler s:METHODS)
+				bw.write(s.getClass().getSimpleName()+"\t");
+			bw.write("\r\n\r\n");
+			printTo(bw, successResult, "success ratio");
+			printTo(bw, NCResult, "normalized cost");
+
+			bw.write("reference values (CF, MF, CC, MC)\r\n");
+			double divider = SIZES.length * FILE_INDEX_MAX * deadlineNum;
+			for(double refValue : refValues)
+				bw.write(refValue / divider + "\t");
+			bw.close();	
+		}
+		if(exporter != null){
+			exporter.writeCounters();
+			exporter.close();
+		}
+	}
+	
+	static String workflowFile(String workflow, int size, int fi){
+		return new File(new File(WORKFLOW_LOCATION, workflow), workflow + ".n." + size + "." + fi + ".dax").getPath();
+	}
+	
+	//a workflow file with its reference schedules (Benchmarks). Neither depends on deadlines or methods, so a file is loaded
+	//and its references are computed once, and then shared by the cells of the file; the workflow is only read by cells
+	static class FileCase implements Callable<FileCase>{
+		private final String file;
+		private Workflow wf;
+		private double[] refValues = new double[4];		//CF, MF, CC, MC
+		
+		FileCase(String file){
+			this.file = file;
+		}
+		
+		public FileCase call(){
+			wf = WorkflowCache.load(file);
+			Benchmarks benSched = new Benchmarks(wf);
+			refValues[0] = benSched.getFastSchedule().calcCost();
+			refValues[1] = benSched.getFastSchedule().calcMakespan();
+			refValues[2] = benSched.getCheapSchedule().calcCost();
+			refValues[3] = benSched.getCheapSchedule().calcMakespan();
+			return this;
+		}
+		
+		Workflow getWorkflow(){
+			return wf;
+		}
+		double getDeadline(double deadlineFactor){
+			return refValues[1] + (refValues[3] - refValues[1]) * deadlineFactor;
+		}
+		double getCheapCost(){
+			return refValues[2];
+		}
+	}
+	
+	//a cell of the experiment grid: one method on one workflow file with one deadline; it keeps its own results
+	private static class Cell implements Callable<Cell>{
+		private final FileCase fileCase;
+		private final int di, column, mi;		//column is the index of file, i.e., fi + si*FILE_INDEX_MAX
+		private final long seed;
+		private boolean hasSolution = false;
+		private int isSatisfied;
+		private double normalizedCost;
+		
+		Cell(FileCase fileCase, int di, int column, int mi, long seed){
+			this.fileCase = fileCase;
+			this.di = di;
+			this.column = column;
+			this.mi = mi;
+			this.seed = seed;
+		}
+		
+		public Cell call(){
+			Workflow wf = fileCase.getWorkflow();
+			double deadline = fileCase.getDeadline(DF_START + DF_INCR * di);
+
+			Scheduler method = createMethods()[mi];
+			method.setSeed(seed);
+			System.out.println("The current algorithm: " + method.getClass().getCanonicalName());
+
+			String name = method.getClass().getSimpleName();
+			//events of this cell carry file, deadline index, method and seed, as cells run at the same time
+			Monitor.setRun(fileCase.file + ";" + di + ";" + name + ";" + seed);
+			try{
+				evaluate(wf, method, name, deadline);
+			}finally{
+				Monitor.setRun(null);
+			}
+			return this;
+		}
+		private void evaluate(Workflow wf, Scheduler method, String name, double deadline){
+			long startTime = Monitor.startTimer();
+			Solution sol = method.schedule(wf, deadline);
+			Monitor.phaseFinished(Phase.SCHEDULE, name, startTime);
+			if(sol != null){
+				isSatisfied = sol.calcMakespan()<=deadline + E ? 1 : 0;
+				startTime = Monitor.startTimer();
+				boolean isValid = sol.validate(wf);
+				Monitor.phaseFinished(Phase.VALIDATE, name, startTime);
+				if(isValid == false)
+					throw new RuntimeException();
+				hasSolution = true;
+				normalizedCost = sol.calcCost() / fileCase.getCheapCost();
+			}
+		}
+	}
+	
+	private static final java.text.DecimalFormat df = new java.text.DecimalFormat("0.000");
+	static {df.setRoundingMode(RoundingMode.HALF_UP); }
+	private static void printTo(BufferedWriter bw, double[][][] result, String resultName)throws Exception{
+		bw.write(resultName + "\r\n");
+		for(int di = 0;di<=(DF_END-DF_START)/DF_INCR;di++){
+			String text = df.format(DF_START + DF_INCR * di) + "\t";
+			for(int mi=0;mi<METHODS.length;mi++)
+				text += df.format(StatUtils.mean(result[di][mi])) + "\t";
+			bw.write(text + "\r\n");
+			bw.flush();
+		}
+		bw.write("\r\n\r\n\r\n");
+	}
 }
\ No newline at end of file
@@ -1,55 +1,99 @@
-package cloud.workflowScheduling;
-
-import java.io.*;
-
-import cloud.workflowScheduling.methods.*;
-import cloud.workflowScheduling.setting.*;
-
-public class EvaluateRuntime {
-	private static final double DEADLINE_FACTOR = 0.2; 
-	private static final int FILE_INDEX_MAX = 1;  //10
-	private static final String[] WORKFLOWS = { "GENOME", "CYBERSHAKE", "LIGO", "MONTAGE"};//
-
-	private static final Scheduler[] METHODS = { new PSO(),  new LACO()}; //new PSO(),  new LACO(),
-	private static final int FILE_SIZE_MAX = 2;  //10
-	
-	public static void main(String[] args) throws Exception {
-		
-		long[][] runtime = new long[FILE_SIZE_MAX][METHODS.length];
-		for(int fileSizeIndex = 0; fileSizeIndex<FILE_SIZE_MAX; fileSizeIndex++){
-			int size = 100 * (fileSizeIndex+1);
-			for(int methodIndex = 0; methodIndex < METHODS.length; methodIndex++){
-				for(int typeIndex = 0;typeIndex<WORKFLOWS.length;typeIndex++){
-					String workflow = WORKFLOWS[typeIndex];
-					for(int fileNumIndex = 0;fileNumIndex<FILE_INDEX_MAX;fileNumIndex++){
-						String file = Evaluate.WORKFLOW_LOCATION + "\\" + workflow + 
-								"\\" + workflow + ".n." + size + "." + fileNumIndex + ".dax";
-
-						Workflow wf = new Workflow(file);	
-						Benchmarks benSched = new Benchmarks(wf);
-						double deadline = benSched.getFastSchedule().calcMakespan() + (benSched.getCheapSchedule().calcMakespan()
-								- benSched.getFastSchedule().calcMakespan())* DEADLINE_FACTOR;
-						wf.setDeadline(deadline);	
-						
-						long t1 = System.currentTimeMillis();
-						METHODS[methodIndex].schedule(wf);
-						runtime[fileSizeIndex][methodIndex] += System.currentTimeMillis() - t1;
-					}
-				}
-				runtime[fileSizeIndex][methodIndex] /= WORKFLOWS.length * FILE_INDEX_MAX;
-			}
-		}
-
-		
-		BufferedWriter bw = new BufferedWriter(new FileWriter(new File(Evaluate.OUTPUT_LOCATION + "\\runtime.txt")));
-		for(int fileSizeIndex = 0; fileSizeIndex<FILE_SIZE_MAX; fileSizeIndex++){
-			int size = 100 * (fileSizeIndex+1);
-			bw.write(size +"\t");
-			for(int methodIndex = 0; methodIndex < METHODS.length; methodIndex++)
-				bw.write(runtime[fileSizeIndex][methodIndex]+"\t"); 
-			bw.write("\r\n");
-		}
-		bw.flush();
-		bw.close();
-	}
-}
+package cloud.workflowScheduling;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import cloud.workflowScheduling.methods.*;
+import cloud.workflowScheduling.setting.*;
+
+public class EvaluateRuntime {
+	private static final double DEADLINE_FACTOR = 0.2; 
+	private static final int FILE_INDEX_MAX = 1;  //10
+	private static final String[] WORKFLOWS = { "GENOME", "CYBERSHAKE", "LIGO", "MONTAGE"};//
+
+	//new PSO(),  new LACO(),
+	private static Scheduler[] createMethods(){		//each cell creates its own schedulers, as they can not be shared among threads
+		return new Scheduler[]{ new PSO(),  new LACO()};
+	}
+	private static final int METHOD_NO = createMethods().length;
+	private static final int FILE_SIZE_MAX = 2;  //10
+	//measured runtimes are only comparable if cells do not compete for cores, so one thread is used by default
+	private static final int THREADS = Integer.getInteger("threads", 1);
+	private static final long SEED = Long.getLong("seed", 0);
+	
+	public static void main(String[] args) throws Exception {
+		//files are loaded, and their references computed, once and before any runtime is measured
+		List<Evaluate.FileCase> fileCases = new ArrayList<Evaluate.FileCase>();	//indexed by fileIndex(...)
+		for(int fileSizeIndex = 0; fileSizeIndex<FILE_SIZE_MAX; fileSizeIndex++){
+			int size = 100 * (fileSizeIndex+1);
+			for(int typeIndex = 0;typeIndex<WORKFLOWS.length;typeIndex++)
+				for(int fileNumIndex = 0;fileNumIndex<FILE_INDEX_MAX;fileNumIndex++)
+					fileCases.add(new Evaluate.FileCase(Evaluate.workflowFile(WORKFLOWS[typeIndex], size, fileNumIndex)));
+		}
+		fileCases = GridRunner.run(fileCases, THREADS);
+		
+		List<Cell> cells = new ArrayList<Cell>();
+		for(int fileSizeIndex = 0; fileSizeIndex<FILE_SIZE_MAX; fileSizeIndex++){
+			for(int methodIndex = 0; methodIndex < METHOD_NO; methodIndex++){
+				for(int typeIndex = 0;typeIndex<WORKFLOWS.length;typeIndex++){
+					for(int fileNumIndex = 0;fileNumIndex<FILE_INDEX_MAX;fileNumIndex++){
+						Evaluate.FileCase fileCase = fileCases.get(fileIndex(fileSizeIndex, typeIndex, fileNumIndex));
+						long seed = GridRunner.cellSeed(SEED, fileSizeIndex, methodIndex, typeIndex, fileNumIndex);
+						cells.add(new Cell(fileCase, fileSizeIndex, methodIndex, seed));
+					}
+				}
+			}
+		}
+		
+		long[][] runtime = new long[FILE_SIZE_MAX][METHOD_NO];
+		for(Cell cell : GridRunner.run(cells, THREADS))
+			runtime[cell.fileSizeIndex][cell.methodIndex] += cell.runtime;
+		for(int fileSizeIndex = 0; fileSizeIndex<FILE_SIZE_MAX; fileSizeIndex++)
+			for(int methodIndex = 0; methodIndex < METHOD_NO; methodIndex++)
+				runtime[fileSizeIndex][methodIndex] /= WORKFLOWS.length * FILE_INDEX_MAX;
+
+		
+		BufferedWriter bw = new BufferedWriter(new FileWriter(new File(Evaluate.OUTPUT_LOCATION, "runtime.txt")));
+		for(int fileSizeIndex = 0; fileSizeIndex<FILE_SIZE_MAX; fileSizeIndex++){
+			int size = 100 * (fileSizeIndex+1);
+			bw.write(size +"\t");
+			for(int methodIndex = 0; methodIndex < METHOD_NO; methodIndex++)
+				bw.write(runtime[fileSizeIndex][methodIndex]+"\t"); 
+			bw.write("\r\n");
+		}
+		bw.flush();
+		bw.close();
+	}
+	
+	private static int fileIndex(int fileSizeIndex, int typeIndex, int fileNumIndex){
+		return (fileSizeIndex * WORKFLOWS.length + typeIndex) * FILE_INDEX_MAX + fileNumIndex;
+	}
+	
+	//a cell of the experiment: the runtime of one method on one workflow file
+	private static class Cell implements Callable<Cell>{
+		private final Evaluate.FileCase fileCase;
+		private final int fileSizeIndex, methodIndex;
+		private final long seed;
+		private long runtime;
+		
+		Cell(Evaluate.FileCase fileCase, int fileSizeIndex, int methodIndex, long seed){
+			this.fileCase = fileCase;
+			this.fileSizeIndex = fileSizeIndex;
+			this.methodIndex = methodIndex;
+			this.seed = seed;
+		}
+		
+		public Cell call(){
+			Workflow wf = fileCase.getWorkflow();
+			double deadline = fileCase.getDeadline(DEADLINE_FACTOR);
+			
+			Scheduler method = createMethods()[methodIndex];
+			method.setSeed(seed);
+			long t1 = System.currentTimeMillis();
+			method.schedule(wf, deadline);
+			runtime = System.currentTimeMillis() - t1;
+			return this;
+		}
+	}
+}
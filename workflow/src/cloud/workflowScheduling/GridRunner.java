@@ -0,0 +1,46 @@
+package cloud.workflowScheduling;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+//runs the cells of an experiment grid (e.g., workflow × deadline × size × file × method) on a pool of threads.
+//results are returned in the order of cells, so aggregating them does not depend on how threads are scheduled;
+//cells must not share mutable objects, such as a Scheduler, and should use cellSeed for randomness; they may share
+//a Workflow, which schedulers only read
+class GridRunner {
+
+	static <T> List<T> run(List<? extends Callable<T>> cells, int threads) throws Exception{
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+		try{
+			List<Future<T>> futures = new ArrayList<Future<T>>();
+			for(Callable<T> cell : cells)
+				futures.add(pool.submit(cell));
+			List<T> results = new ArrayList<T>(cells.size());
+			for(Future<T> future : futures){
+				try{
+					results.add(future.get());
+				}catch(ExecutionException e){		//report the failure of the cell itself
+					if(e.getCause() instanceof Exception)
+						throw (Exception)e.getCause();
+					throw e;
+				}
+			}
+			return results;
+		}finally{
+			pool.shutdownNow();
+		}
+	}
+
+	//seed of the cell with the given indices; it only depends on baseSeed and indices, not on the order cells are run
+	static long cellSeed(long baseSeed, int... indices){
+		long seed = baseSeed;
+		for(int index : indices)
+			seed = mix(seed * 0x9E3779B97F4A7C15L + index);
+		return seed;
+	}
+	private static long mix(long z){		//finalizer of SplitMix64
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
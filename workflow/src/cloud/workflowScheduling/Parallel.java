@@ -0,0 +1,50 @@
+package cloud.workflowScheduling;
+
+import java.util.concurrent.*;
+
+//fork-join loops over indices, used by the parallel modes of metaheuristics (e.g., PSO) and of preprocessing large workflows.
+//a body must only write state owned by index i, so that results do not depend on the number of threads
+public class Parallel {
+	private static final ForkJoinPool POOL = new ForkJoinPool();
+	private static final int GRAIN = 1;		//indices per leaf task; the work of an index (e.g., decoding a particle) is large
+
+	public interface Body{
+		void run(int i);
+	}
+
+	//run body for i in [0, n), and return when all of them are done
+	public static void forEach(int n, Body body){
+		forEach(n, GRAIN, body);
+	}
+	//grain is the number of indices run by a leaf task, for bodies with little work (e.g., a task of a workflow)
+	public static void forEach(int n, int grain, Body body){
+		if(n <= grain){		//not worth forking
+			for(int i = 0; i < n; i++)
+				body.run(i);
+			return;
+		}
+		POOL.invoke(new Loop(body, 0, n, grain));
+	}
+
+	private static class Loop extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+		private final Body body;
+		private final int from, to, grain;
+
+		Loop(Body body, int from, int to, int grain){
+			this.body = body;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+		protected void compute(){
+			if(to - from <= grain){
+				for(int i = from; i < to; i++)
+					body.run(i);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new Loop(body, from, mid, grain), new Loop(body, mid, to, grain));
+		}
+	}
+}
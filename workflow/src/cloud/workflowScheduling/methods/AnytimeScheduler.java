@@ -0,0 +1,16 @@
+package cloud.workflowScheduling.methods;
+
+import cloud.workflowScheduling.setting.*;
+
+//a scheduler that improves its best solution iteration by iteration (e.g., PSO, LACO), so that it can be stopped early
+//and return the best solution so far; schedule(wf, deadline) runs all of its iterations
+public interface AnytimeScheduler extends Scheduler {
+	//schedule wf within timeBudget milliseconds of wall-clock time, and stop earlier if the best solution is not improved
+	//in stallIterations iterations, or if it meets deadline with a cost not above targetCost (a negative targetCost means
+	//no target, as costs are not negative). The time is checked between iterations, and at least the initial solutions
+	//(e.g., one iteration of LACO) are built, so a run may exceed timeBudget by about one iteration
+	Solution schedule(Workflow wf, double deadline, long timeBudget, int stallIterations, double targetCost);
+	//whether the last run converged, i.e., it stopped because of stallIterations or targetCost, or ran all of its
+	//iterations, rather than being cut by timeBudget
+	boolean isConverged();
+}
@@ -1,153 +1,287 @@
-package cloud.workflowScheduling.methods;
-
-import static java.lang.Math.*;
-import java.util.*;
-
-import cloud.workflowScheduling.setting.*;
-
-public class LACO implements Scheduler {
-	private static final double ALPHA = 1;
-	private static final double BETA = 2;
-	private static final double EVAP_RATIO = 0.8;
-	private static final int NO_OF_ITE = 50;
-	private static final int NO_OF_EPSILON_ITE = (int)(NO_OF_ITE*0.7);
-	private static final int NO_OF_ANTS = 20;
-	
-	private double[][] pheromone; 
-	private double[] heuristic;
-	private Workflow wf;
-	private ProLiS pds = new ProLiS(1.5);
-	
-	private double epsilonDeadline;
-	
-	@Override
-	public Solution schedule(Workflow wf) {
-		this.wf = wf;
-		int size = wf.size();
-		heuristic = new double[size];
-		pheromone = new double[size][size];
-		for(int i =0;i<size;i++)		//initialize pheromone
-			for(int j=0;j<size;j++)
-				pheromone[i][j] = 1;
-
-		Benchmarks bench = new Benchmarks(wf);
-		double maxMakespan = bench.getCheapSchedule().calcMakespan();//used to calculate epsilonDeadline
-		Ant gbAnt = null;	//globalBestAnt
-		for(int iterIndex = 0; iterIndex<NO_OF_ITE; iterIndex++){	 //iteration index
-			Ant[] ants = new Ant[NO_OF_ANTS];
-			for(Task t : wf)	//initialize heuristic information
-				heuristic[t.getId()] = t.getpURank();
-			
-			if(maxMakespan<wf.getDeadline() || iterIndex >= NO_OF_EPSILON_ITE)
-				epsilonDeadline = wf.getDeadline();
-			else
-				epsilonDeadline = wf.getDeadline() +
-					(maxMakespan-wf.getDeadline())* Math.pow((1-(double)iterIndex/NO_OF_EPSILON_ITE), 4);
-			Ant lbAnt = null;	//localBestAnt
-			for(int antId = 0;antId<NO_OF_ANTS;antId++){
-				ants[antId] = new Ant();
-				ants[antId].constructASolution();
-				if(lbAnt==null || ants[antId].solution.isBetterThan(lbAnt.solution, epsilonDeadline))
-					lbAnt = ants[antId];
-			}
-			
-			//update  pheromone
-			for(int j =0;j<size;j++)	
-				for(int i=0;i<size;i++)
-					pheromone[j][i] *= EVAP_RATIO;
-			if(gbAnt!=null && random()>0.9)
-				gbAnt.releasePheromone();
-			else
-				lbAnt.releasePheromone();
-			for(int j =0;j<size;j++){
-				for(int i=0;i<size;i++){
-					if(pheromone[j][i]>1)
-						pheromone[j][i]=1;
-					else if(pheromone[j][i]<0.2)
-						pheromone[j][i]=0.2;
-				}
-			}
-			
-			if(gbAnt==null || lbAnt.solution.isBetterThan(gbAnt.solution, epsilonDeadline)){
-				gbAnt = lbAnt;
-				System.out.printf("Iteration index%3d\t%5.2f\t%5.2f\t%5.2f\n",iterIndex,
-						gbAnt.getSolution().calcCost(),
-						gbAnt.getSolution().calcMakespan(),epsilonDeadline);
-			}
-		}
-		return gbAnt.getSolution();
-	}
-	
-    private class Ant {
-		private Solution solution;
-		private int[] taskIdList = new int[wf.size()];
-		
-		public Ant(){
-			wf.calcPURank(pds.getTheta());
-		}
-		
-		public Solution constructASolution(){
-    		List<Task> L = new ArrayList<Task>();	//Empty list that will contain the sorted elements
-    		List<Task> S = new ArrayList<Task>();	//S: Set of all nodes with no incoming edges	
-    		S.add(wf.get(0));		
-
-    		for(Task t : wf)		//set topoCount to 0
-    			t.setTopoCount(0);
-    		
-    		int tIndex = 0;			//task index in task ordering L
-    		while(S.size()>0){
-    			Task task;       
-    			// remove a task from S
-    			if(tIndex==0)	
-    				task = S.remove(0);	//entry task
-    			else
-    				task = chooseNextTask(taskIdList[tIndex], S);
-    			
-    			taskIdList[tIndex] = task.getId();
-    			tIndex++;
-    			L.add(task);					// add n to tail of L
-        		
-    			for(Edge e : task.getOutEdges()){	// for each node m with an edge e from n to m do
-    				Task child = e.getDestination();
-    				child.setTopoCount(child.getTopoCount()+1);//remove edge e from the graph--achieved by setting TopoCount here
-    				if(child.getTopoCount() == child.getInEdges().size())	//  if m has no other incoming edges then
-    					S.add(child);					// insert m into S			
-    			}
-    		}
-
-    		solution =  pds.buildViaTaskList(wf, L, epsilonDeadline);
-    		return solution;
-    	}
-        
-        private Task chooseNextTask(int curTaskId, List<Task> S) {
-            double sum = 0;		
-            for (Task t : S)	
-                sum += pow(pheromone[curTaskId][t.getId()], ALPHA) * pow(heuristic[t.getId()], BETA);
-            
-            double slice = sum * random();
-            double k = 0;			
-            int chosenIndex = 0;			//the chosen index in S
-            for (int indexInS = 0; k < slice; indexInS++) {	
-            	Task t = S.get(indexInS);
-                k += pow(pheromone[curTaskId][t.getId()], ALPHA) * pow(heuristic[t.getId()], BETA);
-                chosenIndex = indexInS;
-            }
-            return S.remove(chosenIndex);
-        }
-    	
-        public void releasePheromone() {
-        	double value = 1 / solution.calcCost() + 0.5;
-        	for(int i = 0;i<taskIdList.length-1; i++)
-        		pheromone[taskIdList[i]][taskIdList[i+1]] += value;
-        }
-
-    	public Solution getSolution() {
-			return solution;
-		}
-
-		@Override
-		public String toString() {
-			return "Ant [cost=" + solution.calcCost() + ", makespan=" + solution.calcMakespan()+ "]";
-		}
-    }
+package cloud.workflowScheduling.methods;
+
+import static java.lang.Math.*;
+import java.util.*;
+
+import cloud.workflowScheduling.*;
+import cloud.workflowScheduling.monitor.*;
+import cloud.workflowScheduling.setting.*;
+
+public class LACO implements AnytimeScheduler {
+	private static final double ALPHA = 1;
+	private static final double BETA = 2;
+	private static final double EVAP_RATIO = 0.8;
+	private static final int NO_OF_ITE = 50;
+	private static final int NO_OF_EPSILON_ITE = (int)(NO_OF_ITE*0.7);
+	private static final int NO_OF_ANTS = 20;
+	private static final int NO_OF_RANK_SAMPLES = 100;	//size of the pool of pURank samples, from which ants draw
+	private static final int CACHE_CAPACITY = 1024;		//decoded task orderings kept in cache
+	
+	private Pheromone pheromone; 
+	private double[] heuristic;
+	private double[] heuristicWeights;	//heuristic^BETA of each task, fixed during the construction of an iteration
+	private Workflow wf;
+	private Task[] tasks;		//indexed by task id
+	private double[][] rankPool;	//pURank samples, indexed by sample and then by task id
+	private ScheduleCache cache;	//makespan and cost of task orderings decoded in the last run
+	private ProLiS pds = new ProLiS(1.5);
+	private Random rnd = new Random();
+	private final boolean parallel;
+	
+	private double deadline, epsilonDeadline;
+	private boolean converged;		//of the last run, see AnytimeScheduler
+	
+	public LACO(){
+		this(false);
+	}
+	//in the parallel mode, the ants of an iteration construct their solutions in parallel. pURanks of ants are still drawn
+	//in the order of ants, and each ant has its own random numbers seeded from rnd and its own ProLiS; pheromone and heuristic
+	//are only read during construction, and the local best ant is selected in the order of ants, so the result does not
+	//depend on the number of threads
+	public LACO(boolean parallel){
+		this.parallel = parallel;
+	}
+	
+	@Override
+	public void setSeed(long seed) {
+		rnd.setSeed(seed);
+	}
+	
+	public ScheduleCache getCache(){
+		return cache;
+	}
+	
+	@Override
+	public boolean isConverged(){
+		return converged;
+	}
+	
+	@Override
+	public Solution schedule(Workflow wf, double deadline) {
+		return schedule(wf, deadline, Long.MAX_VALUE, Integer.MAX_VALUE, -1);
+	}
+	
+	@Override
+	public Solution schedule(Workflow wf, double deadline, long timeBudget, int stallIterations, double targetCost) {
+		long beginTime = System.nanoTime();
+		this.wf = wf;
+		this.deadline = deadline;
+		this.cache = new ScheduleCache(CACHE_CAPACITY);
+		int size = wf.size();
+		heuristic = new double[size];
+		heuristicWeights = new double[size];
+		tasks = new Task[size];
+		for(Task t : wf)
+			tasks[t.getId()] = t;
+		pheromone = new Pheromone(1, EVAP_RATIO, 0.2, 1, size);	//initialize pheromone
+
+		Benchmarks bench = new Benchmarks(wf);
+		double maxMakespan = bench.getCheapSchedule().calcMakespan();//used to calculate epsilonDeadline
+		Ant gbAnt = null;	//globalBestAnt
+		//solutions are reused across iterations: one for each ant, and the last one for gbAnt
+		CompactSolution[] solutions = new CompactSolution[NO_OF_ANTS + 1];
+		for(int i = 0; i < solutions.length; i++)
+			solutions[i] = new CompactSolution(wf);
+		ProLiS[] builders = new ProLiS[NO_OF_ANTS];		//ProLiS of each ant in the parallel mode, as it has scratch state
+		for(int i = 0; i < builders.length; i++)
+			builders[i] = parallel ? new ProLiS(pds.getTheta()) : pds;
+		rankPool = wf.getPURankSampler(pds.getTheta()).sample(NO_OF_RANK_SAMPLES, rnd.nextLong());
+		double[] lastPURanks = rankPool[rnd.nextInt(NO_OF_RANK_SAMPLES)];	//pURanks drawn by the last ant
+		converged = true;
+		int stallCount = 0;		//iterations since the last improvement of gbAnt
+		for(int iterIndex = 0; iterIndex<NO_OF_ITE; iterIndex++){	 //iteration index
+			if(gbAnt != null){		//at least one iteration
+				if(stallCount >= stallIterations)
+					break;
+				if(gbAnt.makespan <= deadline + Evaluate.E && gbAnt.cost <= targetCost)
+					break;
+				if((System.nanoTime() - beginTime) / 1000000 >= timeBudget){
+					converged = false;
+					break;
+				}
+			}
+			stallCount++;
+			final Ant[] ants = new Ant[NO_OF_ANTS];
+			for(Task t : wf){	//initialize heuristic information
+				heuristic[t.getId()] = lastPURanks[t.getId()];
+				heuristicWeights[t.getId()] = pow(heuristic[t.getId()], BETA);
+			}
+			
+			if(maxMakespan<deadline || iterIndex >= NO_OF_EPSILON_ITE)
+				epsilonDeadline = deadline;
+			else
+				epsilonDeadline = deadline +
+					(maxMakespan-deadline)* Math.pow((1-(double)iterIndex/NO_OF_EPSILON_ITE), 4);
+			Ant lbAnt = null;	//localBestAnt
+			if(parallel){		//cache is only used by this thread between the parallel loops, in the order of ants
+				for(int antId = 0;antId<NO_OF_ANTS;antId++)
+					ants[antId] = new Ant(solutions[antId], new Random(rnd.nextLong()), builders[antId]);
+				Parallel.forEach(NO_OF_ANTS, new Parallel.Body(){
+					public void run(int antId){
+						ants[antId].constructOrdering();
+					}
+				});
+				for(Ant ant : ants)
+					ant.lookUp();
+				Parallel.forEach(NO_OF_ANTS, new Parallel.Body(){
+					public void run(int antId){
+						ants[antId].decodeIfMissed();
+					}
+				});
+				for(Ant ant : ants)
+					ant.record();
+			}
+			for(int antId = 0;antId<NO_OF_ANTS;antId++){
+				if(parallel == false){
+					ants[antId] = new Ant(solutions[antId], rnd, pds);
+					ants[antId].constructASolution();
+				}
+				lastPURanks = ants[antId].pURanks;
+				if(lbAnt==null || ants[antId].isBetterThan(lbAnt.makespan, lbAnt.cost))
+					lbAnt = ants[antId];
+			}
+			
+			//update  pheromone
+			pheromone.evaporate();
+			if(gbAnt!=null && rnd.nextDouble()>0.9)
+				gbAnt.releasePheromone();
+			else
+				lbAnt.releasePheromone();
+			//pheromone is clamped to [0.2, 1] when read
+			
+			if(gbAnt==null || lbAnt.isBetterThan(gbAnt.makespan, gbAnt.cost)){
+				gbAnt = new Ant(lbAnt, solutions[NO_OF_ANTS]);
+				stallCount = 0;
+			}
+			if(Monitor.isEnabled())
+				Monitor.iterationFinished("LACO", iterIndex, gbAnt.cost, gbAnt.makespan);
+		}
+		return gbAnt.getSolution().toSolution();
+	}
+	
+    private class Ant {
+		private CompactSolution solution;
+		private int[] taskIdList = new int[wf.size()];
+		private int rankIndex;			//index of pURanks in rankPool
+		private double[] pURanks;		//indexed by task id
+		private int[] topoCount = new int[wf.size()];	//indexed by task id
+		private Random rnd;			//shared by all ants in the sequential mode
+		private ProLiS builder;		//builds the solution from the task list
+		private List<Task> L;			//task ordering
+		private int[] encoding;			//taskIdList followed by rankIndex, the key of the ant in cache
+		private boolean isDecoded;		//whether solution is built from L; not if it is found in cache
+		private boolean isCached;		//whether makespan and cost of encoding are found in cache
+		private double makespan, cost;
+		
+		public Ant(CompactSolution solution, Random rnd, ProLiS builder){
+			this.solution = solution;
+			this.rnd = rnd;
+			this.builder = builder;
+			rankIndex = LACO.this.rnd.nextInt(NO_OF_RANK_SAMPLES);
+			pURanks = rankPool[rankIndex];
+		}
+		private Ant(Ant ant, CompactSolution solution){	//copy ant, whose solution will be reused, into solution
+			this.solution = solution;
+			solution.copyFrom(ant.getSolution());
+			isDecoded = true;
+			makespan = ant.makespan;
+			cost = ant.cost;
+			taskIdList = ant.taskIdList.clone();
+			rankIndex = ant.rankIndex;
+			pURanks = ant.pURanks;
+		}
+		
+		public void constructASolution(){
+			constructOrdering();
+			lookUp();
+			decodeIfMissed();
+			record();
+		}
+		private void constructOrdering(){
+    		L = new ArrayList<Task>();	//Empty list that will contain the sorted elements
+    		ReadySet S = new ReadySet(wf.size());	//S: Set of all nodes with no incoming edges, weighted by heuristicWeights
+    		S.add(wf.get(0).getId(), 0);		
+
+    		int tIndex = 0;			//task index in task ordering L
+    		while(S.size()>0){
+    			Task task;       
+    			// remove a task from S
+    			if(tIndex==0){	
+    				task = wf.get(0);	//entry task
+    				S.remove(task.getId());
+    			}else
+    				task = chooseNextTask(taskIdList[tIndex], S);
+    			
+    			taskIdList[tIndex] = task.getId();
+    			tIndex++;
+    			L.add(task);					// add n to tail of L
+        		
+    			for(Edge e : task.getOutEdges()){	// for each node m with an edge e from n to m do
+    				Task child = e.getDestination();
+    				topoCount[child.getId()]++;	//remove edge e from the graph--achieved by setting TopoCount here
+    				if(topoCount[child.getId()] == child.getInEdges().size())	//  if m has no other incoming edges then
+    					S.add(child.getId(), heuristicWeights[child.getId()]);	// insert m into S			
+    			}
+    		}
+
+    		encoding = Arrays.copyOf(taskIdList, taskIdList.length + 1);
+    		encoding[taskIdList.length] = rankIndex;
+    	}
+		private void lookUp(){
+    		double[] cached = cache.get(encoding, epsilonDeadline);
+    		isCached = cached != null;
+    		if(isCached){		//the same ordering was decoded before with the same pURanks and epsilonDeadline
+    			isDecoded = false;
+    			makespan = cached[0];
+    			cost = cached[1];
+    		}
+		}
+		private void decodeIfMissed(){
+			if(isCached == false)
+				decode();
+		}
+		private void record(){
+			if(isCached == false)
+				cache.put(encoding, epsilonDeadline, makespan, cost);
+		}
+        private void decode(){
+    		builder.buildViaTaskList(wf, L, pURanks, epsilonDeadline, solution);
+    		isDecoded = true;
+    		makespan = solution.calcMakespan();
+    		cost = solution.calcCost();
+        }
+        
+        //roulette wheel over pheromone^ALPHA * heuristic^BETA in O(log |S|) expected time: a task is sampled from S by
+        //heuristic^BETA, and accepted with probability pheromone^ALPHA, which is at most 1 as pheromone is clamped to [0.2, 1];
+        //so the expected number of samples is at most 1/0.2^ALPHA
+        private Task chooseNextTask(int curTaskId, ReadySet S) {
+        	while(true){
+        		int id = S.sample(rnd.nextDouble());
+        		if(rnd.nextDouble() < pow(pheromone.get(curTaskId, id), ALPHA)){
+        			S.remove(id);
+        			return tasks[id];
+        		}
+        	}
+        }
+    	
+        public void releasePheromone() {
+        	double value = 1 / cost + 0.5;
+        	for(int i = 0;i<taskIdList.length-1; i++)
+        		pheromone.deposit(taskIdList[i], taskIdList[i+1], value);
+        }
+
+        public boolean isBetterThan(double makespan, double cost){
+        	return Solution.isBetterThan(this.makespan, this.cost, makespan, cost, epsilonDeadline);
+        }
+    	public CompactSolution getSolution() {		//decoded on demand if it was found in cache
+    		if(isDecoded == false)
+    			decode();
+			return solution;
+		}
+
+		@Override
+		public String toString() {
+			return "Ant [cost=" + cost + ", makespan=" + makespan+ "]";
+		}
+    }
 }
\ No newline at end of file
@@ -1,119 +1,236 @@
-package cloud.workflowScheduling.methods;
-
-import java.util.*;
-
-import cloud.workflowScheduling.setting.*;
-
-/*Rodriguez, Maria Alejandra, and Rajkumar Buyya. "Deadline based resource provisioning and scheduling
-   algorithm for scientific workflows on clouds." IEEE Transactions on Cloud Computing 2.2 (2014): 222-235.*/
-public class PSO implements Scheduler {
-
-	private static final int POPSIZE = 100;
-	private static final int NO_OF_ITE = 100;
-	private static final double W = 0.5f, C1 = 2f, C2 = 2f;		//parameters for PSO are from the paper
-	
-	private Workflow wf;
-	private int range;
-	private Random rnd = new Random();
-	
-	private int dimension;	//number of tasks
-	private VM[] vmPool;
-	
-	@Override
-	public Solution schedule(Workflow wf) {
-		this.wf = wf;
-		this.dimension = wf.size();
-		this.range = wf.getMaxParallel() * VM.TYPE_NO;
-		this.vmPool = new VM[range];
-		for(int i = 0; i < vmPool.length; i++){
-			vmPool[i] = new VM(i/wf.getMaxParallel()); // in vmPool, VMType ascends
-		}
-		
-		double xMin = 0,  xMax = range - 1;	//boundary
-		double vMax = xMax;					//maximum velocity
-		double[] globalBestPos = new double[dimension];	//global Best Position
-		Solution globalBestSol = null;		
-		
-		Particle[] particles = new Particle[POPSIZE];
-		for (int i = 0; i < POPSIZE; i++){		//initialize particles 
-			particles[i] = new Particle(vMax, xMin, xMax);
-			particles[i].generateSolution();
-			
-			if (globalBestSol == null || particles[i].sol.isBetterThan(globalBestSol, wf.getDeadline())) {
-				for (int j = 0; j < dimension; j++)
-					globalBestPos[j] = particles[i].position[j];
-				globalBestSol= particles[i].sol;	// ﲻҪcloneΪparticlesolÿεʱnew
-			}
-		}
-		System.out.println("the best initial solution:"+globalBestSol.calcCost()+";\t"+globalBestSol.calcMakespan());
-		
-		for (int iteIndex = 0; iteIndex < NO_OF_ITE; iteIndex++) {
-//			W = (double) (1.0 - iteIndex * 0.6 / 499);	//Եݼw = 1ЧҪһЩ
-			for (int i = 0; i < POPSIZE; i++) {
-				for (int j = 0; j < dimension; j++) {
-					particles[i].speed[j] = W * particles[i].speed[j]
-					        + C1 * rnd.nextDouble() * (particles[i].bestPos[j] - particles[i].position[j])
-							+ C2 * rnd.nextDouble() * (globalBestPos[j] - particles[i].position[j]);  //ȫλΪھ
-					particles[i].speed[j] = Math.min(particles[i].speed[j], vMax);
-					
-					particles[i].position[j] = particles[i].position[j] + particles[i].speed[j];
-
-					particles[i].position[j] = Math.max(particles[i].position[j], xMin);	//bound
-					particles[i].position[j] = Math.min(particles[i].position[j], xMax);
-				}
-				particles[i].generateSolution();
-				//record a better solution
-				if (globalBestSol == null || particles[i].sol.isBetterThan(globalBestSol, wf.getDeadline())) {
-					for (int j = 0; j < dimension; j++)
-						globalBestPos[j] = particles[i].position[j];
-					globalBestSol= particles[i].sol;
-					
-					System.out.printf("Iteration index%3d\t%5.2f\t%5.2f\n",iteIndex,
-							globalBestSol.calcCost(),	globalBestSol.calcMakespan());
-				}
-			}
-		}
-		System.out.println("Globle best is :" + globalBestSol.calcCost()+";\t"+globalBestSol.calcMakespan());
-		return globalBestSol;
-	}
-	
-	private class Particle{
-		private double[] position = new double[dimension];
-		private double[] speed = new double[dimension];
-		private double[] bestPos = new double[dimension];
-		private Solution sol, bestSol = null;
-		
-		//initialize a particle
-		public Particle(double vMax, double xMin, double xMax){
-			for (int i = 0; i < dimension; i++){
-				this.position[i] = rnd.nextDouble() * (xMax - xMin) + xMin; 
-				this.speed[i] = vMax * rnd.nextDouble() - vMax/2;			
-				this.bestPos[i] = this.position[i];	
-			}
-		}
-		
-		public void generateSolution() {		//generate solution from position
-			this.sol = new Solution();	
-			for(int i=0;i<position.length;i++){
-				Task task = wf.get(i);		// tasks in wf is a topological sort
-				int vmIndex = (int)(Math.floor(position[i]));
-				VM vm = vmPool[vmIndex];
-				double startTime = sol.calcEST(task, vm);
-				sol.addTaskToVM(vm, task, startTime, true);
-			}
-			
-			//record the best solution this particle has found
-			if (bestSol==null || this.sol.isBetterThan(bestSol, wf.getDeadline())){
-				for (int j = 0; j < dimension; j++)
-					this.bestPos[j] = this.position[j];	
-				this.bestSol = this.sol;	
-			}
-		}
-
-		public String toString() {
-			if(sol != null)
-				return "Particle [" + sol.calcCost()+ ", " + sol.calcMakespan()+ "]";
-			return "";
-		}
-	}
-}
\ No newline at end of file
+package cloud.workflowScheduling.methods;
+
+import java.util.*;
+
+import cloud.workflowScheduling.*;
+import cloud.workflowScheduling.monitor.*;
+import cloud.workflowScheduling.setting.*;
+
+/*Rodriguez, Maria Alejandra, and Rajkumar Buyya. "Deadline based resource provisioning and scheduling
+   algorithm for scientific workflows on clouds." IEEE Transactions on Cloud Computing 2.2 (2014): 222-235.*/
+public class PSO implements AnytimeScheduler {
+
+	private static final int POPSIZE = 100;
+	private static final int NO_OF_ITE = 100;
+	private static final double W = 0.5f, C1 = 2f, C2 = 2f;		//parameters for PSO are from the paper
+	private static final int CACHE_CAPACITY = 1024;		//evaluated VM assignments kept in cache
+	
+	private Workflow wf;
+	private double deadline;
+	private int range;
+	private Random rnd = new Random();
+	private final boolean parallel;
+	
+	private int dimension;	//number of tasks
+	private int[] vmPoolTypes;	//types of VMs in the pool; a particle position selects a VM from the pool
+	private Swarm swarm;		//positions and speeds of all the particles
+	private ScheduleCache cache;	//makespan and cost of VM assignments evaluated in the last run
+	private int[][] assignments;	//VM in the pool of each task, of each particle; decoded from positions
+	private PopulationEvaluator evaluator;
+	private int[] poolToVM;		//VM in a solution of each VM in the pool, used by decode; -1 means not used
+	private boolean converged;		//of the last run, see AnytimeScheduler
+	
+	public PSO(){
+		this(false);
+	}
+	//in the parallel mode, all particles of an iteration move towards the global best position of the previous iteration,
+	//and are decoded in parallel; each particle has its own random numbers seeded from rnd, so the result does not depend
+	//on the number of threads. The sequential mode updates the global best after each particle, as in the paper
+	public PSO(boolean parallel){
+		this.parallel = parallel;
+	}
+	
+	@Override
+	public void setSeed(long seed) {
+		rnd.setSeed(seed);
+	}
+	
+	public ScheduleCache getCache(){
+		return cache;
+	}
+	
+	@Override
+	public boolean isConverged(){
+		return converged;
+	}
+	
+	@Override
+	public Solution schedule(Workflow wf, double deadline) {
+		return schedule(wf, deadline, Long.MAX_VALUE, Integer.MAX_VALUE, -1);
+	}
+	
+	@Override
+	public Solution schedule(Workflow wf, double deadline, long timeBudget, int stallIterations, double targetCost) {
+		long beginTime = System.nanoTime();
+		this.wf = wf;
+		this.deadline = deadline;
+		this.dimension = wf.size();
+		this.cache = new ScheduleCache(CACHE_CAPACITY);
+		this.range = wf.getMaxParallel() * VM.TYPE_NO;
+		this.vmPoolTypes = new int[range];
+		for(int i = 0; i < vmPoolTypes.length; i++){
+			vmPoolTypes[i] = i/wf.getMaxParallel(); // in vmPool, VMType ascends
+		}
+		
+		final double xMin = 0,  xMax = range - 1;	//boundary
+		final double vMax = xMax;					//maximum velocity
+		final double[] globalBestPos = new double[dimension];	//global Best Position
+		CompactSolution globalBestSol = new CompactSolution(wf);
+		
+		swarm = new Swarm(POPSIZE, dimension, W, C1, C2);
+		assignments = new int[POPSIZE][dimension];
+		evaluator = new PopulationEvaluator(wf, vmPoolTypes, POPSIZE);
+		poolToVM = new int[range];
+		final Particle[] particles = new Particle[POPSIZE];
+		for (int i = 0; i < POPSIZE; i++)		//initialize particles 
+			particles[i] = new Particle(i, vMax, xMin, xMax, parallel ? new Random(rnd.nextLong()) : rnd);
+		if(parallel)
+			generateSolutions(particles, false, globalBestPos, vMax, xMin, xMax);
+		for (int i = 0; i < POPSIZE; i++){
+			if(parallel == false)
+				particles[i].generateSolution();
+			if (i == 0 || particles[i].isBetterThan(globalBestSol)) {
+				swarm.copyPosition(i, globalBestPos);
+				decode(assignments[i], globalBestSol);	//particle的sol每次迭代时都会被重用，所以需要copy
+			}
+		}
+		
+		converged = true;
+		int stallCount = 0;		//iterations since the last improvement of the global best
+		for (int iteIndex = 0; iteIndex < NO_OF_ITE; iteIndex++) {
+			if(stallCount >= stallIterations)
+				break;
+			if(globalBestSol.calcMakespan() <= deadline + Evaluate.E && globalBestSol.calcCost() <= targetCost)
+				break;
+			if((System.nanoTime() - beginTime) / 1000000 >= timeBudget){
+				converged = false;
+				break;
+			}
+			stallCount++;
+//			W = (double) (1.0 - iteIndex * 0.6 / 499);	//惯性递减，比w = 1效果要好一些。
+			if(parallel)		//globalBestPos is not changed until all particles are decoded
+				generateSolutions(particles, true, globalBestPos, vMax, xMin, xMax);
+			for (int i = 0; i < POPSIZE; i++) {
+				if(parallel == false){
+					particles[i].move(globalBestPos, vMax, xMin, xMax);
+					particles[i].generateSolution();
+				}
+				//record a better solution; in the parallel mode, particles are merged in the order of index
+				if (particles[i].isBetterThan(globalBestSol)) {
+					swarm.copyPosition(i, globalBestPos);
+					decode(assignments[i], globalBestSol);
+					stallCount = 0;
+				}
+			}
+			if(Monitor.isEnabled())
+				Monitor.iterationFinished("PSO", iteIndex, globalBestSol.calcCost(), globalBestSol.calcMakespan());
+		}
+		return globalBestSol.toSolution();
+	}
+	
+	//generateSolution of all particles in the parallel mode, after moving them if move is true. Positions are decoded into
+	//assignments and evaluated in parallel, while cache is only used by this thread between the parallel loops, in the order
+	//of particles, so it needs no lock and its content does not depend on the number of threads
+	private void generateSolutions(final Particle[] particles, final boolean move, final double[] globalBestPos,
+			final double vMax, final double xMin, final double xMax){
+		Parallel.forEach(POPSIZE, new Parallel.Body(){
+			public void run(int i){
+				if(move)
+					particles[i].move(globalBestPos, vMax, xMin, xMax);
+				particles[i].encode();
+			}
+		});
+		for(Particle particle : particles)
+			particle.lookUp();
+		Parallel.forEach(POPSIZE, new Parallel.Body(){
+			public void run(int i){
+				particles[i].evaluate();
+			}
+		});
+		for(Particle particle : particles)
+			particle.record();
+	}
+	
+	//build the schedule of assignment into sol; only the global best is built, the others are evaluated by evaluator
+	private void decode(int[] assignment, CompactSolution sol){
+		sol.reset();
+		Arrays.fill(poolToVM, -1);
+		for(int i=0;i<dimension;i++){
+			Task task = wf.get(i);		// tasks in wf is a topological sort
+			int vmIndex = assignment[i];
+			int vm = poolToVM[vmIndex];
+			if(vm == -1)
+				vm = poolToVM[vmIndex] = sol.newVM(vmPoolTypes[vmIndex]);
+			double startTime = sol.calcEST(task, vm);
+			sol.addTaskToVM(vm, task, startTime, true);
+		}
+	}
+	
+	private class Particle{		//the position, speed and best position of a particle are kept in swarm
+		private final int index;	//index in swarm
+		private Random rnd;		//shared by all particles in the sequential mode
+		private double makespan, cost;
+		private double bestMakespan, bestCost;		//of the best position
+		private boolean hasBest = false;
+		private boolean isCached;		//whether makespan and cost of the current assignment are found in cache
+		
+		//initialize a particle
+		public Particle(int index, double vMax, double xMin, double xMax, Random rnd){
+			this.index = index;
+			this.rnd = rnd;
+			swarm.init(index, rnd, vMax, xMin, xMax);
+		}
+		
+		public void move(double[] globalBestPos, double vMax, double xMin, double xMax){
+			swarm.move(index, globalBestPos, rnd, vMax, xMin, xMax);
+		}
+		
+		public void generateSolution() {		//evaluate the VM assignment decoded from position
+			encode();
+			lookUp();
+			evaluate();
+			record();
+		}
+		private void encode(){
+			double[] positions = swarm.positions;
+			int offset = swarm.offset(index);
+			int[] assignment = assignments[index];
+			for(int i=0;i<dimension;i++)
+				assignment[i] = (int)(Math.floor(positions[offset + i]));
+		}
+		private void lookUp(){
+			double[] cached = cache.get(assignments[index], deadline);
+			isCached = cached != null;
+			if(isCached){		//the same VM assignment was evaluated before
+				makespan = cached[0];
+				cost = cached[1];
+			}
+		}
+		private void evaluate(){
+			if(isCached)
+				return;
+			evaluator.evaluate(index, assignments[index]);
+			makespan = evaluator.getMakespan(index);
+			cost = evaluator.getCost(index);
+		}
+		private void record(){
+			if(isCached == false)
+				cache.put(assignments[index], deadline, makespan, cost);
+			//record the best position this particle has found
+			if (hasBest == false || Solution.isBetterThan(makespan, cost, bestMakespan, bestCost, deadline)){
+				swarm.recordBestPosition(index);
+				bestMakespan = makespan;
+				bestCost = cost;
+				hasBest = true;
+			}
+		}
+		
+		public boolean isBetterThan(CompactSolution s){
+			return Solution.isBetterThan(makespan, cost, s.calcMakespan(), s.calcCost(), deadline);
+		}
+
+		public String toString() {
+			return "Particle [" + cost + ", " + makespan + "]";
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package cloud.workflowScheduling.methods;
+
+import java.util.*;
+
+//pheromone on transitions (from, to) between tasks, used by LACO in place of a dense n*n matrix. Only transitions that
+//pheromone has been deposited on are stored, in an open-addressing hash map keyed by (from, to); the others keep the initial
+//value. Evaporation is lazy: evaporate() only advances the epoch, and an entry records the epoch of its last deposit, so it
+//is decayed by evapRatio^(epochs since then) when read. Values are clamped to [min, max] when read, which gives the same values
+//as evaporating, depositing and clamping every entry in each epoch. get may be called concurrently; the others may not
+class Pheromone {
+	private static final long EMPTY = -1;
+
+	private final double initial, evapRatio, min, max;
+	private int epoch = 0;
+	private double[] decays = new double[16];	//decays[k] = evapRatio^k
+
+	private long[] keys;			//(from << 32) | to; EMPTY means an empty slot
+	private double[] values;		//value after the deposits in its epoch, before clamping
+	private int[] epochs;
+	private int size = 0;
+
+	Pheromone(double initial, double evapRatio, double min, double max, int expectedSize){
+		this.initial = initial;
+		this.evapRatio = evapRatio;
+		this.min = min;
+		this.max = max;
+		decays[0] = 1;
+		int capacity = 16;
+		while(capacity < expectedSize * 2)
+			capacity *= 2;
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		values = new double[capacity];
+		epochs = new int[capacity];
+	}
+
+	void evaporate(){
+		epoch++;
+		if(epoch == decays.length)
+			decays = Arrays.copyOf(decays, epoch * 2);
+		decays[epoch] = decays[epoch - 1] * evapRatio;
+	}
+
+	double get(int from, int to){
+		int slot = find(key(from, to));
+		if(keys[slot] == EMPTY)
+			return valueAt(initial, 0, epoch);
+		return valueAt(values[slot], epochs[slot], epoch);
+	}
+	//the clamped value at epoch e of an entry whose value is value at epoch valueEpoch
+	private double valueAt(double value, int valueEpoch, int e){
+		return Math.max(min, Math.min(max, value) * decays[e - valueEpoch]);
+	}
+
+	//add value to the transition (from, to) in the current epoch, i.e., after evaporate()
+	void deposit(int from, int to, double value){
+		long key = key(from, to);
+		int slot = find(key);
+		if(keys[slot] == EMPTY){
+			keys[slot] = key;
+			values[slot] = valueAt(initial, 0, epoch - 1) * evapRatio + value;
+			epochs[slot] = epoch;
+			if(++size * 2 > keys.length)
+				grow();
+		}else if(epochs[slot] == epoch)
+			values[slot] += value;
+		else{
+			values[slot] = valueAt(values[slot], epochs[slot], epoch - 1) * evapRatio + value;
+			epochs[slot] = epoch;
+		}
+	}
+
+	//----------------------------------------hash map-------------------------------------------
+	private static long key(int from, int to){
+		return ((long)from << 32) | to;
+	}
+	private int find(long key){		//the slot of key, or the empty slot where it would be inserted
+		int mask = keys.length - 1;
+		int slot = (int)((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		while(keys[slot] != EMPTY && keys[slot] != key)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+	private void grow(){
+		long[] oldKeys = keys;
+		double[] oldValues = values;
+		int[] oldEpochs = epochs;
+		keys = new long[oldKeys.length * 2];
+		Arrays.fill(keys, EMPTY);
+		values = new double[keys.length];
+		epochs = new int[keys.length];
+		for(int i = 0; i < oldKeys.length; i++){
+			if(oldKeys[i] == EMPTY)
+				continue;
+			int slot = find(oldKeys[i]);
+			keys[slot] = oldKeys[i];
+			values[slot] = oldValues[i];
+			epochs[slot] = oldEpochs[i];
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package cloud.workflowScheduling.methods;
+
+import java.util.*;
+
+import cloud.workflowScheduling.setting.*;
+
+//computes makespan and cost of VM assignments of a population (e.g., particles of PSO) without building solutions.
+//an assignment gives the VM in a pool of each task, indexed by the position of the task in the workflow (a topological
+//sort); tasks are appended to their VMs in this order, as decoding into a CompactSolution does, and the results are the
+//same. It runs in loops over the CSR view of the workflow (TaskGraph), and each member has its own scratch buffers,
+//reused across iterations, so that members can be evaluated in parallel
+class PopulationEvaluator {
+	private final TaskGraph graph;
+	private final int[] vmPoolTypes;		//type of each VM in the pool
+	private final double[] makespans, costs;	//indexed by member
+	private final Scratch[] scratches;
+
+	PopulationEvaluator(Workflow wf, int[] vmPoolTypes, int popSize){
+		this.graph = wf.getGraph();
+		this.vmPoolTypes = vmPoolTypes;
+		makespans = new double[popSize];
+		costs = new double[popSize];
+		scratches = new Scratch[popSize];
+	}
+
+	//evaluate the assignment of member; it only writes state owned by member
+	void evaluate(int member, int[] assignment){
+		if(scratches[member] == null)
+			scratches[member] = new Scratch(graph.size(), vmPoolTypes.length);
+		Scratch s = scratches[member];
+		int n = graph.size();
+		int[] parentStart = graph.getParentStart(), parents = graph.getParents();
+		int[] childStart = graph.getChildStart(), children = graph.getChildren();
+		double[] parentTT = graph.getParentTransferTimes(), childTT = graph.getChildTransferTimes();
+		double[] taskSizes = graph.getTaskSizes();
+		double[] start = s.start, finish = s.finish;
+		int[] firstTask = s.firstTask, lastTask = s.lastTask, usedVMs = s.usedVMs;
+		Arrays.fill(firstTask, -1);
+		int usedCount = 0;
+
+		for(int j = 0; j < n; j++){		//EST of task j on its VM, as CompactSolution.calcEST
+			int vm = assignment[j];
+			double EST = 0;
+			for(int k = parentStart[j]; k < parentStart[j+1]; k++){
+				int parent = parents[k];
+				double arrivalTime = finish[parent];
+				if(assignment[parent] != vm)
+					arrivalTime += parentTT[k];
+				EST = Math.max(EST, arrivalTime);
+			}
+			if(firstTask[vm] == -1){
+				EST = Math.max(EST, VM.LAUNCH_TIME);
+				firstTask[vm] = j;
+				usedVMs[usedCount++] = vm;
+			}else
+				EST = Math.max(EST, finish[lastTask[vm]]);
+			lastTask[vm] = j;
+			start[j] = EST;
+			finish[j] = EST + taskSizes[j] / VM.SPEEDS[vmPoolTypes[vm]];
+		}
+
+		double makespan = -1, cost = 0;
+		for(int i = 0; i < usedCount; i++){		//leases of VMs, in the order they are used
+			int vm = usedVMs[i];
+			int first = firstTask[vm], last = lastTask[vm];
+			double maxTransferTime = 0;
+			for(int k = parentStart[first]; k < parentStart[first+1]; k++)
+				if(assignment[parents[k]] != vm)
+					maxTransferTime = Math.max(maxTransferTime, parentTT[k]);
+			double leaseStartTime = start[first] - maxTransferTime;
+			maxTransferTime = 0;
+			for(int k = childStart[last]; k < childStart[last+1]; k++)
+				if(assignment[children[k]] != vm)
+					maxTransferTime = Math.max(maxTransferTime, childTT[k]);
+			double leaseEndTime = finish[last] + maxTransferTime;
+			cost += VM.UNIT_COSTS[vmPoolTypes[vm]] * Math.ceil((leaseEndTime - leaseStartTime)/VM.INTERVAL);
+			makespan = Math.max(makespan, finish[last]);
+		}
+		makespans[member] = makespan;
+		costs[member] = cost;
+	}
+
+	double getMakespan(int member){
+		return makespans[member];
+	}
+	double getCost(int member){
+		return costs[member];
+	}
+
+	private static class Scratch{
+		private final double[] start, finish;		//indexed by task position
+		private final int[] firstTask, lastTask;	//indexed by VM in the pool; firstTask = -1 means not used
+		private final int[] usedVMs;				//in the order they are used
+
+		Scratch(int n, int poolSize){
+			start = new double[n];
+			finish = new double[n];
+			firstTask = new int[poolSize];
+			lastTask = new int[poolSize];
+			usedVMs = new int[poolSize];
+		}
+	}
+}
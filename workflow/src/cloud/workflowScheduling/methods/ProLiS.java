@@ -1,149 +1,359 @@
-package cloud.workflowScheduling.methods;
-
-import java.util.*;
-
-import cloud.workflowScheduling.*;
-import cloud.workflowScheduling.setting.*;
-
-public class ProLiS implements Scheduler {
-	
-	private double theta = 2;
-	public ProLiS(double theta){
-		this.theta = theta;
-	}
-	public double getTheta() {
-		return theta;
-	}
-	
-	public Solution schedule(Workflow wf) {
-		wf.calcPURank(theta);
-		List<Task> tasks = new ArrayList<Task>(wf);
-		Collections.sort(tasks, new Task.PURankComparator()); 	
-		Collections.reverse(tasks);	//sort based on pURank, larger first
-		
-		return buildViaTaskList(wf, tasks, wf.getDeadline());
-	}
-	
-	//build a solution based on a task ordering.
-	//that is, for a given task ordering, distribute deadline and select services here
-	Solution buildViaTaskList(Workflow wf, List<Task> tasks, double deadline) {
-		int violationCount = 0;		// test code
-		Solution solution = new Solution();
-		double CPLength = wf.get(0).getpURank(); 	//critical path
-		
-		for(int i = 1; i < tasks.size(); i++){		
-			Task task = tasks.get(i);
-			double proSubDeadline = (CPLength - task.getpURank() + task.getTaskSize()/VM.SPEEDS[VM.FASTEST])
-							/CPLength * deadline;
-			Allocation alloc = getMinCostVM(task, solution,proSubDeadline, i);
-
-			//CPLength>deadlineʱ޵ĻֿܵEFT>subDeadlineԱ뿼޲ʱѡminimal EFTVM
-			if(alloc == null){			//select a vm which allows EFT
-				alloc = getMinEFTVM(task, solution, proSubDeadline, i);
-				
-				VM vm = alloc.getVM();
-				while(alloc.getFinishTime() > proSubDeadline + Evaluate.E && vm.getType() < VM.FASTEST){
-					solution.updateVM(vm);			//upgradeĸ£ӶȽ̫ࡣ
-					alloc.setStartTime(solution.calcEST(task, vm));
-					alloc.setFinishTime(solution.calcEST(task, vm) + task.getTaskSize()/vm.getSpeed());
-				}
-				if(alloc.getFinishTime() > proSubDeadline + Evaluate.E)
-					violationCount ++;
-			}
-			if(i == 1)		//after allocating task_1, allocate entryTask to the same VM 
-				solution.addTaskToVM(alloc.getVM(), tasks.get(0), alloc.getStartTime(), true);
-			solution.addTaskToVM(alloc.getVM(), task, alloc.getStartTime(), true);	//allocate
-		}
-//		if(violationCount > 0)
-//			System.out.println("Number of sub-deadline violation: " + violationCount);
-		
-		return solution;
-	}
-	
-	// select a vm that meets sub-deadline and minimizes the cost
-	//candidate services include all the services that have been used (i.e., R), 
-	//			and those that have not been used but can be added any time (one service for each type)
-	private Allocation getMinCostVM(Task task, Solution solution, double subDeadline, int taskIndex){
-		double minIncreasedCost = Double.MAX_VALUE;	//increased cost for one VM is used here, instead of total cost
-		VM selectedVM = null;
-		double selectedStartTime = 0;
-		
-		double maxOutTime = 0;	//maxTransferOutTime
-		for(Edge e : task.getOutEdges())
-			maxOutTime = Math.max(maxOutTime, e.getDataSize());
-		maxOutTime /= VM.NETWORK_SPEED;
-		
-		double startTime, finishTime;
-		// traverse VMs in solution to find a vm that meets sub-deadline and minimizes the cost
-		for(VM vm : solution.keySet()){	
-			startTime = solution.calcEST(task, vm); 
-			finishTime = startTime + task.getTaskSize()/vm.getSpeed();
-			if(finishTime > subDeadline + Evaluate.E)   //sub-deadline not met
-				continue;
-			
-			double newVMPeriod = finishTime + maxOutTime - solution.getVMLeaseStartTime(vm);
-			double newVMTotalCost = Math.ceil(newVMPeriod/VM.INTERVAL) * vm.getUnitCost();
-			double increasedCost = newVMTotalCost - solution.calcVMCost(vm);  // oldVMTotalCost
-			if(increasedCost < minIncreasedCost){ 
-				minIncreasedCost = increasedCost;
-				selectedVM = vm;
-				selectedStartTime = startTime;
-			}
-		}
-
-		//test whether a new VM can meet the sub-deadline and (or) reduce increasedCost; if so, add this new VM
-		int selectedI = -1;				
-		startTime = taskIndex==1 ? VM.LAUNCH_TIME : solution.calcEST(task, null);
-		for(int k = 0 ; k<VM.TYPE_NO; k++){
-			finishTime = startTime + task.getTaskSize()/VM.SPEEDS[k];
-			if(finishTime > subDeadline + Evaluate.E)	//sub-deadline not met
-				continue;
-			
-			double increasedCost = Math.ceil((finishTime - startTime)/VM.INTERVAL) * VM.UNIT_COSTS[k];
-			if(increasedCost < minIncreasedCost){
-				minIncreasedCost = increasedCost;
-				selectedI = k;
-				selectedStartTime = startTime;
-			}
-		}
-		if(selectedI != -1)
-			selectedVM = new VM(selectedI);
-		
-		if(selectedVM == null)
-			return null;
-		else
-			return new Allocation(selectedVM, task, selectedStartTime);
-	}
-	
-	//select a VM from R which minimizes the finish time of the task
-	//here, candidates only include services from R if R is not null
-	private Allocation getMinEFTVM(Task task, Solution solution, double subDeadline, int taskIndex){
-		VM selectedVM = null;				
-		double selectedStartTime = 0;
-		double minEFT = Double.MAX_VALUE;
-		
-		double startTime, finishTime;
-		// traverse VMs in solution to find a vm that minimizes EFT
-		for(VM vm : solution.keySet()){			
-			startTime = solution.calcEST(task, vm); 
-			finishTime = startTime + task.getTaskSize()/vm.getSpeed();
-			if(finishTime < minEFT){
-				minEFT = finishTime;
-				selectedVM = vm;
-				selectedStartTime = startTime;
-			}
-		}
-
-		// if solution has no VMs 
-		if(selectedVM==null ){		// logically, it is equal to "solution.keySet().size()==0"
-			startTime = taskIndex==1 ? VM.LAUNCH_TIME : solution.calcEST(task, null);
-			finishTime = startTime + task.getTaskSize()/VM.SPEEDS[VM.FASTEST];
-			if(finishTime < minEFT){
-				minEFT = finishTime;
-				selectedStartTime = startTime;
-				selectedVM = new VM(VM.FASTEST);
-			}
-		}
-		return  new Allocation(selectedVM, task, selectedStartTime);
-	}
-}
\ No newline at end of file
+package cloud.workflowScheduling.methods;
+
+import java.util.*;
+
+import cloud.workflowScheduling.*;
+import cloud.workflowScheduling.setting.*;
+
+public class ProLiS implements Scheduler {
+	
+	private double theta = 2;
+	private Random rnd = new Random();
+	public ProLiS(double theta){
+		this.theta = theta;
+	}
+	public double getTheta() {
+		return theta;
+	}
+	public void setSeed(long seed) {
+		rnd.setSeed(seed);
+	}
+	
+	public Solution schedule(Workflow wf, double deadline) {
+		double[] pURanks = wf.calcPURank(theta, rnd);
+		List<Task> tasks = new ArrayList<Task>(wf);
+		Collections.sort(tasks, new Task.PURankComparator(pURanks)); 	
+		Collections.reverse(tasks);	//sort based on pURank, larger first
+		
+		CompactSolution solution = new CompactSolution(wf);
+		buildViaTaskList(wf, tasks, pURanks, deadline, solution);
+		return solution.toSolution();
+	}
+	
+	//build a solution based on a task ordering.
+	//that is, for a given task ordering, distribute deadline and select services here
+	//pURanks is indexed by task id; solution is reset and then filled, so that callers (e.g., LACO) can reuse it
+	void buildViaTaskList(Workflow wf, List<Task> tasks, double[] pURanks, double deadline, CompactSolution solution) {
+		violationCount = 0;
+		solution.reset();
+		resetIndex();
+		fixedVMCount = 0;
+		releaseTime = VM.LAUNCH_TIME;
+		double CPLength = pURanks[wf.get(0).getId()]; 	//critical path
+		
+		for(int i = 1; i < tasks.size(); i++){		
+			Task task = tasks.get(i);
+			double proSubDeadline = (CPLength - pURanks[task.getId()] + task.getTaskSize()/VM.SPEEDS[VM.FASTEST])
+							/CPLength * deadline;
+			double newVMEST = calcArrivals(task, solution);		//used by getMinCostVM and getMinEFTVM
+			if(i == 1)		//entryTask is not allocated yet
+				newVMEST = VM.LAUNCH_TIME;
+			int vm = selectVM(task, solution, proSubDeadline, newVMEST);
+			if(i == 1)		//after allocating task_1, allocate entryTask to the same VM 
+				solution.addTaskToVM(vm, tasks.get(0), selectedStartTime, true);
+			solution.addTaskToVM(vm, task, selectedStartTime, true);	//allocate
+			index(solution, vm);
+		}
+//		if(violationCount > 0)
+//			System.out.println("Number of sub-deadline violation: " + violationCount);
+	}
+
+	//reschedule a running workflow, whose task runtimes differ from the estimated ones, from its current solution.
+	//actualTimes gives {start time, finish time} of each task that has finished or is running (an expected finish time);
+	//these tasks are kept on their VMs in current with these times. The VMs of these tasks, and the other VMs of current
+	//that are leased at now (even idle ones), are kept with their types and lease start times, are paid at least until
+	//now (or the end of their leases in current), and are not upgraded; the other tasks may be placed on them.
+	//the other tasks are scheduled as buildViaTaskList does: in the order of pURank, with sub-deadlines distributed over
+	//[now, now + remainingDeadline] by their pURanks, and no task starts before now. Only the unfinished part is scheduled,
+	//so it is much cheaper than scheduling wf again. In the result, the VMs kept come first, in the order of current
+	public Solution reschedule(Workflow wf, Solution current, Map<Task, double[]> actualTimes, double now,
+			double remainingDeadline){
+		CompactSolution solution = new CompactSolution(wf);
+		violationCount = 0;
+		resetIndex();
+		for(VM v : current.keySet()){
+			double leaseStartTime = current.getVMLeaseStartTime(v), leaseEndTime = current.getVMLeaseEndTime(v);
+			boolean isLeased = leaseStartTime <= now && leaseEndTime > now;
+			for(Allocation alloc : current.get(v))
+				isLeased = isLeased || actualTimes.containsKey(alloc.getTask());
+			if(isLeased == false)
+				continue;
+			int vm = solution.newVM(v.getType(), leaseStartTime, Math.min(leaseEndTime, now));
+			for(Allocation alloc : current.get(v)){
+				double[] times = actualTimes.get(alloc.getTask());
+				if(times != null)
+					solution.addTaskToVM(vm, alloc.getTask(), times[0], times[1]);
+			}
+			index(solution, vm);
+		}
+		fixedVMCount = solution.getVMCount();
+		releaseTime = now;
+
+		double[] pURanks = wf.calcPURank(theta, rnd);
+		List<Task> tasks = new ArrayList<Task>();
+		for(Task task : wf)
+			if(actualTimes.containsKey(task) == false)
+				tasks.add(task);
+		Collections.sort(tasks, new Task.PURankComparator(pURanks));
+		Collections.reverse(tasks);	//sort based on pURank, larger first
+		if(tasks.size() > 0){
+			double CPLength = pURanks[tasks.get(0).getId()]; 	//critical path of the unfinished part
+			for(Task task : tasks){
+				double proSubDeadline = now + (CPLength - pURanks[task.getId()] + task.getTaskSize()/VM.SPEEDS[VM.FASTEST])
+								/CPLength * remainingDeadline;
+				double newVMEST = calcArrivals(task, solution);
+				int vm = selectVM(task, solution, proSubDeadline, newVMEST);
+				solution.addTaskToVM(vm, task, selectedStartTime, true);
+				index(solution, vm);
+			}
+		}
+		return solution.toSolution();
+	}
+
+	private int violationCount;		// test code
+	private int fixedVMCount;		//VMs [0, fixedVMCount) are kept from the current solution (see reschedule), and can not be upgraded
+	private double releaseTime;		//no task starts before it
+
+	//select a VM for task and set selectedStartTime; the VM may be new or upgraded
+	private int selectVM(Task task, CompactSolution solution, double subDeadline, double newVMEST){
+		int vm = getMinCostVM(task, solution, subDeadline, newVMEST);
+		if(vm != -1)
+			return vm;
+
+		//当CPLength>deadline时，子期限的划分可能导致EFT>subDeadline；所以必须考虑子期限不满足的情况：此时选择minimal EFT的VM
+		vm = getMinEFTVM(task, solution, newVMEST);		//select a vm which allows EFT
+		double finishTime = selectedStartTime + task.getTaskSize()/VM.SPEEDS[solution.getVMType(vm)];
+		
+		int type = solution.getVMType(vm);
+		if(finishTime > subDeadline + Evaluate.E && type < VM.FASTEST && vm >= fixedVMCount){
+			//the slowest faster type that meets sub-deadline, or the fastest one; vm is upgraded to it at once
+			do{
+				type++;
+				finishTime = solution.calcEST(task, vm, type) + task.getTaskSize()/VM.SPEEDS[type];
+			}while(finishTime > subDeadline + Evaluate.E && type < VM.FASTEST);
+			solution.updateVM(vm, type);			//upgrade若进行整个解的更新；复杂度将增长太多。
+			selectedStartTime = solution.calcEST(task, vm);
+			finishTime = solution.calcEST(task, vm) + task.getTaskSize()/VM.SPEEDS[solution.getVMType(vm)];
+		}
+		if(finishTime > subDeadline + Evaluate.E)
+			violationCount ++;
+		return vm;
+	}
+	
+	private double selectedStartTime;	//start time of the task on the VM returned by getMinCostVM or getMinEFTVM
+
+	//data-arrival profile of the current task, the same as that in CompactSolution.calcESTs: the EST on a used VM is
+	//max(bestArrival (or secondArrival on bestVM), ready time of the VM, finish times of parents on the VM)
+	private double bestArrival, secondArrival;	//secondArrival is the latest remote arrival from VMs other than bestVM
+	private int bestVM;
+	private int[] bestVMs = new int[1];		//{bestVM}, visited before the index
+	private double[] localArrivals = new double[16];	//latest finish time of parents on each VM, if localStamps[vm] == stamp
+	private int[] localStamps = new int[16];
+	private int stamp = 0;
+
+	//index of used VMs: the VMs of each type sorted by ready time, so that VMs which can not meet sub-deadline are not visited.
+	//it is updated when a task is added to a VM, which is also when a VM is upgraded
+	private int[][] vmsOfType = new int[VM.TYPE_NO][16];
+	private int[] vmCountOfType = new int[VM.TYPE_NO];
+	private double[] maxTailOfType = new double[VM.TYPE_NO];	//upper bound of (lease end time - ready time) of VMs of each type
+	private int[] indexedTypes = new int[16];		//type of each VM in the index; -1 means not indexed
+
+	private void resetIndex(){
+		Arrays.fill(vmCountOfType, 0);
+		Arrays.fill(maxTailOfType, 0);
+		Arrays.fill(indexedTypes, -1);
+	}
+	//(re)insert vm into the index, after its ready time or type changes; the other VMs keep their ready times
+	private void index(CompactSolution solution, int vm){
+		if(indexedTypes.length < solution.getVMCount()){
+			int oldLength = indexedTypes.length;
+			indexedTypes = Arrays.copyOf(indexedTypes, solution.getVMCount() * 2);
+			Arrays.fill(indexedTypes, oldLength, indexedTypes.length, -1);
+		}
+		int oldType = indexedTypes[vm];
+		if(oldType != -1){
+			int[] list = vmsOfType[oldType];
+			int i = 0;
+			while(list[i] != vm)
+				i++;
+			System.arraycopy(list, i + 1, list, i, vmCountOfType[oldType] - i - 1);
+			vmCountOfType[oldType]--;
+		}
+		int type = solution.getVMType(vm);
+		double readyTime = solution.getVMReadyTime(vm);
+		int size = vmCountOfType[type];
+		if(size == vmsOfType[type].length)
+			vmsOfType[type] = Arrays.copyOf(vmsOfType[type], size * 2);
+		int[] list = vmsOfType[type];
+		int low = 0, high = size;		//insert after VMs with ready times not later than readyTime
+		while(low < high){
+			int mid = (low + high) >>> 1;
+			if(solution.getVMReadyTime(list[mid]) <= readyTime)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		System.arraycopy(list, low, list, low + 1, size - low);
+		list[low] = vm;
+		vmCountOfType[type] = size + 1;
+		indexedTypes[vm] = type;
+		maxTailOfType[type] = Math.max(maxTailOfType[type], solution.getVMLeaseEndTime(vm) - readyTime);
+	}
+
+	//build the data-arrival profile of task in O(indegree), and return its EST on a new VM
+	private double calcArrivals(Task task, CompactSolution solution){
+		if(localStamps.length < solution.getVMCount()){
+			localStamps = Arrays.copyOf(localStamps, solution.getVMCount() * 2);
+			localArrivals = new double[localStamps.length];
+		}
+		stamp++;
+		bestArrival = releaseTime;		//as a remote arrival from no VM
+		secondArrival = releaseTime;
+		bestVM = -1;
+		for(Edge inEdge : task.getInEdges()){
+			Task parent = inEdge.getSource();
+			int vm = solution.getVM(parent);
+			double finishTime = solution.getFinishTime(parent);
+			double arrivalTime = finishTime + inEdge.getDataSize() / VM.NETWORK_SPEED;
+			if(arrivalTime > bestArrival){
+				if(vm != bestVM)
+					secondArrival = bestArrival;
+				bestArrival = arrivalTime;
+				bestVM = vm;
+			}else if(vm != bestVM)
+				secondArrival = Math.max(secondArrival, arrivalTime);
+			if(vm != -1){		//data from a parent on the same VM arrives at its finish time
+				if(localStamps[vm] != stamp){
+					localStamps[vm] = stamp;
+					localArrivals[vm] = finishTime;
+				}else
+					localArrivals[vm] = Math.max(localArrivals[vm], finishTime);
+			}
+		}
+		bestVMs[0] = bestVM;
+		return Math.max(bestArrival, VM.LAUNCH_TIME);
+	}
+	//EST of the current task on a used vm; it is ESTs[vm] of CompactSolution.calcESTs
+	private double calcEST(CompactSolution solution, int vm){
+		double EST = Math.max(vm == bestVM ? secondArrival : bestArrival, solution.getVMReadyTime(vm));
+		if(localStamps[vm] == stamp)
+			EST = Math.max(EST, localArrivals[vm]);
+		return EST;
+	}
+
+	// select a vm that meets sub-deadline and minimizes the cost; returns -1 if there is no such vm
+	//candidate services include all the services that have been used (i.e., R),
+	//			and those that have not been used but can be added any time (one service for each type)
+	//VMs are created and used in the same order here, so a tie of increased costs goes to the VM with the smaller index,
+	//as if VMs were traversed in solution. Via the index, a type is skipped if none of its VMs can meet sub-deadline
+	//or beat minIncreasedCost, and VMs of a type are visited in the order of ready time until sub-deadline can not be met
+	private int getMinCostVM(Task task, CompactSolution solution, double subDeadline, double newVMEST){
+		double minIncreasedCost = Double.MAX_VALUE;	//increased cost for one VM is used here, instead of total cost
+		int selectedVM = -1;
+		selectedStartTime = 0;
+
+		double maxOutTime = 0;	//maxTransferOutTime
+		for(Edge e : task.getOutEdges())
+			maxOutTime = Math.max(maxOutTime, e.getDataSize());
+		maxOutTime /= VM.NETWORK_SPEED;
+
+		double startTime, finishTime;
+		// traverse VMs in solution to find a vm that meets sub-deadline and minimizes the cost
+		for(int k = -1; k < VM.TYPE_NO; k++){		//k = -1: bestVM, whose EST may be earlier than bestArrival
+			int[] list = k == -1 ? bestVMs : vmsOfType[k];
+			int size = k == -1 ? (bestVM == -1 ? 0 : 1) : vmCountOfType[k];
+			if(k >= 0){
+				double execTime = task.getTaskSize()/VM.SPEEDS[k];
+				if(bestArrival + execTime > subDeadline + Evaluate.E)	//no VM of type k meets sub-deadline
+					continue;
+				//newVMPeriod - oldVMPeriod >= execTime + maxOutTime - maxTail, which bounds increased cost from below
+				double maxCut = Math.max(0, maxTailOfType[k] - execTime - maxOutTime);
+				if(-Math.ceil(maxCut/VM.INTERVAL) * VM.UNIT_COSTS[k] - Evaluate.E > minIncreasedCost)
+					continue;
+			}
+			for(int i = 0; i < size; i++){
+				int vm = list[i];
+				double execTime = task.getTaskSize()/VM.SPEEDS[solution.getVMType(vm)];
+				if(k >= 0 && Math.max(bestArrival, solution.getVMReadyTime(vm)) + execTime > subDeadline + Evaluate.E)
+					break;		//neither do the VMs ready later
+				if(k >= 0 && vm == bestVM)
+					continue;
+				startTime = calcEST(solution, vm);
+				finishTime = startTime + execTime;
+				if(finishTime > subDeadline + Evaluate.E)   //sub-deadline not met
+					continue;
+
+				double newVMPeriod = finishTime + maxOutTime - solution.getVMLeaseStartTime(vm);
+				double newVMTotalCost = Math.ceil(newVMPeriod/VM.INTERVAL) * VM.UNIT_COSTS[solution.getVMType(vm)];
+				double increasedCost = newVMTotalCost - solution.calcVMCost(vm);  // oldVMTotalCost
+				if(increasedCost < minIncreasedCost || increasedCost == minIncreasedCost && vm < selectedVM){
+					minIncreasedCost = increasedCost;
+					selectedVM = vm;
+					selectedStartTime = startTime;
+				}
+			}
+		}
+
+		//test whether a new VM can meet the sub-deadline and (or) reduce increasedCost; if so, add this new VM
+		int selectedI = -1;
+		startTime = newVMEST;
+		for(int k = 0 ; k<VM.TYPE_NO; k++){
+			finishTime = startTime + task.getTaskSize()/VM.SPEEDS[k];
+			if(finishTime > subDeadline + Evaluate.E)	//sub-deadline not met
+				continue;
+
+			double increasedCost = Math.ceil((finishTime - startTime)/VM.INTERVAL) * VM.UNIT_COSTS[k];
+			if(increasedCost < minIncreasedCost){
+				minIncreasedCost = increasedCost;
+				selectedI = k;
+				selectedStartTime = startTime;
+			}
+		}
+		if(selectedI != -1)
+			selectedVM = solution.newVM(selectedI);
+		return selectedVM;
+	}
+
+	//select a VM from R which minimizes the finish time of the task
+	//here, candidates only include services from R if R is not null
+	//like getMinCostVM, a tie goes to the VM with the smaller index, and VMs of a type are visited in the order of ready time
+	private int getMinEFTVM(Task task, CompactSolution solution, double newVMEST){
+		int selectedVM = -1;
+		selectedStartTime = 0;
+		double minEFT = Double.MAX_VALUE;
+
+		double startTime, finishTime;
+		// traverse VMs in solution to find a vm that minimizes EFT
+		for(int k = -1; k < VM.TYPE_NO; k++){		//k = -1: bestVM
+			int[] list = k == -1 ? bestVMs : vmsOfType[k];
+			int size = k == -1 ? (bestVM == -1 ? 0 : 1) : vmCountOfType[k];
+			for(int i = 0; i < size; i++){
+				int vm = list[i];
+				double execTime = task.getTaskSize()/VM.SPEEDS[solution.getVMType(vm)];
+				if(k >= 0 && Math.max(bestArrival, solution.getVMReadyTime(vm)) + execTime > minEFT)
+					break;		//neither can the VMs ready later
+				if(k >= 0 && vm == bestVM)
+					continue;
+				startTime = calcEST(solution, vm);
+				finishTime = startTime + execTime;
+				if(finishTime < minEFT || finishTime == minEFT && vm < selectedVM){
+					minEFT = finishTime;
+					selectedVM = vm;
+					selectedStartTime = startTime;
+				}
+			}
+		}
+
+		// if solution has no VMs
+		if(selectedVM == -1){		// logically, it is equal to "solution.getUsedVMCount()==0"
+			startTime = newVMEST;
+			finishTime = startTime + task.getTaskSize()/VM.SPEEDS[VM.FASTEST];
+			if(finishTime < minEFT){
+				minEFT = finishTime;
+				selectedStartTime = startTime;
+				selectedVM = solution.newVM(VM.FASTEST);
+			}
+		}
+		return selectedVM;
+	}
+}
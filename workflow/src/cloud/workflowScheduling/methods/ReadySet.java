@@ -0,0 +1,68 @@
+package cloud.workflowScheduling.methods;
+
+import java.util.*;
+
+//a set of task ids in [0, n) with non-negative weights, from which an id is sampled with probability proportional to
+//its weight in O(log n); used by LACO for the ready tasks of an ant. Weights are the leaves of a complete binary sum tree,
+//and the inner nodes on the path of a leaf are recomputed from their children when it changes, so sums do not drift
+class ReadySet {
+	private final int capacity;			//number of leaves, a power of 2
+	private final double[] tree;		//tree[1] is the root, and the leaf of id is tree[capacity + id]
+	private final int[] ids;			//ids in the set
+	private final int[] positions;		//index of each id in ids; -1 means not in the set
+	private int size = 0;
+
+	ReadySet(int n){
+		int c = 1;
+		while(c < n)
+			c *= 2;
+		capacity = c;
+		tree = new double[capacity * 2];
+		ids = new int[n];
+		positions = new int[n];
+		Arrays.fill(positions, -1);
+	}
+
+	int size(){
+		return size;
+	}
+
+	void add(int id, double weight){
+		positions[id] = size;
+		ids[size++] = id;
+		setWeight(id, weight);
+	}
+	void remove(int id){
+		int position = positions[id];
+		int last = ids[--size];		//move the last id to position
+		ids[position] = last;
+		positions[last] = position;
+		positions[id] = -1;
+		setWeight(id, 0);
+	}
+	private void setWeight(int id, double weight){
+		int node = capacity + id;
+		tree[node] = weight;
+		for(node /= 2; node >= 1; node /= 2)
+			tree[node] = tree[node * 2] + tree[node * 2 + 1];
+	}
+
+	//the id whose weight contains u * (sum of weights), where u is in [0, 1); an id with weight 0 is never returned,
+	//unless all the weights are 0, in which case an arbitrary id in the set is returned. The set must not be empty
+	int sample(double u){
+		if(tree[1] <= 0)
+			return ids[0];
+		double target = u * tree[1];
+		int node = 1;
+		while(node < capacity){
+			int left = node * 2;
+			if(target < tree[left] || tree[left + 1] <= 0)
+				node = left;
+			else{
+				target -= tree[left];
+				node = left + 1;
+			}
+		}
+		return node - capacity;
+	}
+}
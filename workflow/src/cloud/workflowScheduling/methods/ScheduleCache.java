@@ -0,0 +1,72 @@
+package cloud.workflowScheduling.methods;
+
+import java.util.*;
+
+//bounded memo of decoded schedules for PSO and LACO. It is keyed by the discrete encoding of a solution (e.g., the VM index
+//of each task in PSO, or the task ordering and pURank sample in LACO) together with a deadline, and keeps the makespan and
+//cost of the schedule, so that a scheduler skips decoding an encoding seen before unless it needs the schedule itself.
+//the least recently used entry is evicted when it is full. Decoding is deterministic, so hits do not change results.
+//it is not thread-safe (even get changes the access order): in the parallel modes, it is used between the parallel loops
+//in the order of particles or ants, and only encodings missed are decoded in parallel
+public class ScheduleCache {
+	private final Map<Key, double[]> map;		//value: {makespan, cost}
+	private long hitCount = 0, missCount = 0;
+
+	ScheduleCache(final int capacity){
+		map = new LinkedHashMap<Key, double[]>(16, 0.75f, true){	//access order
+			private static final long serialVersionUID = 1L;
+			protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest){
+				return size() > capacity;
+			}
+		};
+	}
+
+	//{makespan, cost} of the schedule of codes under deadline, or null if it is not cached
+	double[] get(int[] codes, double deadline){
+		double[] result = map.get(new Key(codes, deadline));
+		if(result == null)
+			missCount++;
+		else
+			hitCount++;
+		return result;
+	}
+	//codes is copied, so callers can reuse it
+	void put(int[] codes, double deadline, double makespan, double cost){
+		map.put(new Key(codes.clone(), deadline), new double[]{makespan, cost});
+	}
+
+	public long getHitCount(){
+		return hitCount;
+	}
+	public long getMissCount(){
+		return missCount;
+	}
+	@Override
+	public String toString(){
+		return "ScheduleCache [hits=" + hitCount + ", misses=" + missCount + ", size=" + map.size() + "]";
+	}
+
+	private static class Key{
+		private final int[] codes;
+		private final double deadline;
+		private final int hash;
+
+		Key(int[] codes, double deadline){
+			this.codes = codes;
+			this.deadline = deadline;
+			long bits = Double.doubleToLongBits(deadline);
+			this.hash = 31 * Arrays.hashCode(codes) + (int)(bits ^ (bits >>> 32));
+		}
+		@Override
+		public int hashCode(){
+			return hash;
+		}
+		@Override
+		public boolean equals(Object o){
+			if(o instanceof Key == false)
+				return false;
+			Key k = (Key)o;
+			return hash == k.hash && Double.compare(deadline, k.deadline) == 0 && Arrays.equals(codes, k.codes);
+		}
+	}
+}
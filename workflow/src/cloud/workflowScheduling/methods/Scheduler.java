@@ -1,7 +1,12 @@
-package cloud.workflowScheduling.methods;
-
-import cloud.workflowScheduling.setting.*;
-
-public interface Scheduler {
-	Solution schedule(Workflow wf);
-}
+package cloud.workflowScheduling.methods;
+
+import cloud.workflowScheduling.setting.*;
+
+//workflows are not modified by schedulers, and the deadline is given for each run rather than kept in the workflow,
+//so a workflow can be scheduled by several schedulers, with different deadlines, at the same time;
+//a scheduler keeps its state of a run in its fields, so an instance must not be shared among threads
+public interface Scheduler {
+	Solution schedule(Workflow wf, double deadline);
+	//seed the random numbers used by this scheduler, so that its results can be reproduced
+	void setSeed(long seed);
+}
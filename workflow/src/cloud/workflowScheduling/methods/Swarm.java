@@ -0,0 +1,60 @@
+package cloud.workflowScheduling.methods;
+
+import java.util.*;
+
+//particles of PSO in structure-of-arrays form. The position, speed and best position of particle p in dimension j are at
+//index offset(p) + j of flat arrays, so moving a particle is a loop over contiguous doubles without objects.
+//the two random numbers of each dimension are drawn in the loop, in the same order as updating dimensions one by one;
+//Random has no bulk fill of doubles, so staging them in arrays would not save any call.
+//moving different particles writes disjoint ranges, so particles can be moved in parallel
+class Swarm {
+	private final double w, c1, c2;		//inertia weight, and acceleration coefficients
+	private final int size, dimension;
+	final double[] positions, speeds, bestPositions;
+
+	Swarm(int size, int dimension, double w, double c1, double c2){
+		this.size = size;
+		this.dimension = dimension;
+		this.w = w;
+		this.c1 = c1;
+		this.c2 = c2;
+		positions = new double[size * dimension];
+		speeds = new double[size * dimension];
+		bestPositions = new double[size * dimension];
+	}
+
+	int size(){
+		return size;
+	}
+	int offset(int p){		//index of particle p in dimension 0
+		return p * dimension;
+	}
+
+	//random position in [xMin, xMax] and speed in [-vMax/2, vMax/2]
+	void init(int p, Random rnd, double vMax, double xMin, double xMax){
+		for(int k = offset(p), end = k + dimension; k < end; k++){
+			positions[k] = rnd.nextDouble() * (xMax - xMin) + xMin;
+			speeds[k] = vMax * rnd.nextDouble() - vMax/2;
+			bestPositions[k] = positions[k];
+		}
+	}
+
+	//move particle p towards its best position and globalBestPos, bounded by vMax and [xMin, xMax]
+	void move(int p, double[] globalBestPos, Random rnd, double vMax, double xMin, double xMax){
+		for(int k = offset(p), end = k + dimension, j = 0; k < end; k++, j++){
+			double r1 = rnd.nextDouble(), r2 = rnd.nextDouble();
+			double speed = w * speeds[k] + c1 * r1 * (bestPositions[k] - positions[k])
+					+ c2 * r2 * (globalBestPos[j] - positions[k]);
+			speed = Math.min(speed, vMax);
+			speeds[k] = speed;
+			positions[k] = Math.min(Math.max(positions[k] + speed, xMin), xMax);
+		}
+	}
+
+	void recordBestPosition(int p){
+		System.arraycopy(positions, offset(p), bestPositions, offset(p), dimension);
+	}
+	void copyPosition(int p, double[] dest){
+		System.arraycopy(positions, offset(p), dest, 0, dimension);
+	}
+}
@@ -0,0 +1,27 @@
+package cloud.workflowScheduling.monitor;
+
+import java.io.*;
+
+//prints events of Monitor, e.g., to follow the iterations of PSO and LACO as they used to be printed
+public class ConsoleListener implements Listener {
+	private final PrintStream out;
+
+	public ConsoleListener(){
+		this(System.out);
+	}
+	public ConsoleListener(PrintStream out){
+		this.out = out;
+	}
+
+	@Override
+	public void phaseFinished(String run, Phase phase, String name, long nanos){
+		out.printf("%s%s %s: %.3f ms\n", prefix(run), phase, name, nanos / 1e6);
+	}
+	@Override
+	public void iterationFinished(String run, String scheduler, int iteration, double cost, double makespan){
+		out.printf("%s%s Iteration index：%3d\t%5.2f\t%5.2f\n", prefix(run), scheduler, iteration, cost, makespan);
+	}
+	private static String prefix(String run){
+		return run == null ? "" : "[" + run + "] ";
+	}
+}
@@ -0,0 +1,8 @@
+package cloud.workflowScheduling.monitor;
+
+//operations counted by Monitor, in Solution and CompactSolution
+public enum Counter {
+	EST_CALCS,		//calcEST and calcESTs calls
+	TASK_ADDS,		//addTaskToVM calls
+	ALLOCATIONS		//Allocation objects created
+}
@@ -0,0 +1,42 @@
+package cloud.workflowScheduling.monitor;
+
+import java.io.*;
+
+//writes events of Monitor as CSV rows: type, run, phase, name, iteration, nanos, cost, makespan; fields that do not apply
+//to a type of rows are empty, and so is run outside runs. Rows of concurrent runs interleave, and are grouped by run. writeCounters appends the counts of Monitor as rows of type "counter", with counts as nanos
+public class CsvExporter implements Listener, Closeable {
+	private final PrintWriter writer;
+
+	public CsvExporter(File file) throws IOException{
+		this(new FileWriter(file));
+	}
+	public CsvExporter(Writer writer){
+		this.writer = new PrintWriter(new BufferedWriter(writer));
+		this.writer.println("type,run,phase,name,iteration,nanos,cost,makespan");
+	}
+
+	@Override
+	public synchronized void phaseFinished(String run, Phase phase, String name, long nanos){
+		writer.println("phase," + quote(run) + "," + phase + "," + quote(name) + ",," + nanos + ",,");
+	}
+	@Override
+	public synchronized void iterationFinished(String run, String scheduler, int iteration, double cost, double makespan){
+		writer.println("iteration," + quote(run) + ",," + quote(scheduler) + "," + iteration + ",," + cost + "," + makespan);
+	}
+	public synchronized void writeCounters(){
+		for(Counter counter : Counter.values())
+			writer.println("counter,,," + counter + ",," + Monitor.getCount(counter) + ",,");
+	}
+	@Override
+	public synchronized void close(){
+		writer.close();
+	}
+
+	private static String quote(String s){		//names such as file paths may contain commas
+		if(s == null)
+			return "";
+		if(s.indexOf(',') < 0 && s.indexOf('"') < 0)
+			return s;
+		return "\"" + s.replace("\"", "\"\"") + "\"";
+	}
+}
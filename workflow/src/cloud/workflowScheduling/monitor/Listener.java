@@ -0,0 +1,10 @@
+package cloud.workflowScheduling.monitor;
+
+//receives events from Monitor; it may be called by several threads at the same time, e.g., by cells of the experiment grid.
+//run tells apart the events of concurrent runs (see Monitor.setRun); it is null for events sent outside runs
+public interface Listener {
+	//phase of name (e.g., a workflow file, or the class of a scheduler) took nanos nanoseconds
+	void phaseFinished(String run, Phase phase, String name, long nanos);
+	//after iteration of scheduler (e.g., PSO, LACO), its best solution has cost and makespan
+	void iterationFinished(String run, String scheduler, int iteration, double cost, double makespan);
+}
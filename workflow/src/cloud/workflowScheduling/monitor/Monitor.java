@@ -0,0 +1,77 @@
+package cloud.workflowScheduling.monitor;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+//instrumentation of workflow scheduling: phase timers and per-iteration results are sent to listeners, and operations
+//are counted. It is disabled until a listener is added; while disabled, a hook only reads a volatile field, and neither
+//the clock nor counters are touched, so instrumented code runs as fast as before. Counts are global and shared by threads
+public class Monitor {
+	private static volatile Listener[] listeners = new Listener[0];
+	private static volatile boolean enabled = false;
+	private static final AtomicLongArray counts = new AtomicLongArray(Counter.values().length);
+	private static final ThreadLocal<String> runs = new ThreadLocal<String>();
+
+	public static synchronized void addListener(Listener listener){
+		Listener[] newListeners = new Listener[listeners.length + 1];
+		System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+		newListeners[listeners.length] = listener;
+		listeners = newListeners;
+		enabled = true;
+	}
+	public static synchronized void removeListener(Listener listener){
+		int count = 0;
+		Listener[] newListeners = new Listener[listeners.length];
+		for(Listener l : listeners)
+			if(l != listener)
+				newListeners[count++] = l;
+		listeners = Arrays.copyOf(newListeners, count);
+		enabled = count > 0;
+	}
+	public static boolean isEnabled(){
+		return enabled;
+	}
+	//name the run of the current thread, e.g., a cell of the experiment grid; events sent by the thread carry it until
+	//it is set to null, so that events of runs on different threads can be told apart
+	public static void setRun(String run){
+		if(run == null)
+			runs.remove();
+		else
+			runs.set(run);
+	}
+
+	//----------------------------------------timers-------------------------------------------
+	//returns the start time of a phase, to be passed to phaseFinished; 0 if disabled
+	public static long startTimer(){
+		return enabled ? System.nanoTime() : 0;
+	}
+	//the phase is skipped if its timer was started while disabled, i.e., a listener was added during the phase
+	public static void phaseFinished(Phase phase, String name, long startTime){
+		if(enabled == false || startTime == 0)
+			return;
+		long nanos = System.nanoTime() - startTime;
+		String run = runs.get();
+		for(Listener l : listeners)
+			l.phaseFinished(run, phase, name, nanos);
+	}
+	public static void iterationFinished(String scheduler, int iteration, double cost, double makespan){
+		if(enabled == false)
+			return;
+		String run = runs.get();
+		for(Listener l : listeners)
+			l.iterationFinished(run, scheduler, iteration, cost, makespan);
+	}
+
+	//----------------------------------------counters-------------------------------------------
+	public static void count(Counter counter){
+		if(enabled)
+			counts.incrementAndGet(counter.ordinal());
+	}
+	public static long getCount(Counter counter){
+		return counts.get(counter.ordinal());
+	}
+	public static void resetCounts(){
+		for(int i = 0; i < counts.length(); i++)
+			counts.set(i, 0);
+	}
+}
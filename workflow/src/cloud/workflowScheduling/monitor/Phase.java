@@ -0,0 +1,11 @@
+package cloud.workflowScheduling.monitor;
+
+//phases of reading and scheduling a workflow that are timed by Monitor
+public enum Phase {
+	PARSE,			//reading a DAX or .dag file
+	LOAD,			//reading a compiled workflow image (WorkflowCache), instead of PARSE, TOPO_SORT and LEVELS
+	TOPO_SORT,		//Workflow.topoSort
+	LEVELS,			//Workflow.calcTaskLevels
+	SCHEDULE,		//Scheduler.schedule
+	VALIDATE		//Solution.validate
+}
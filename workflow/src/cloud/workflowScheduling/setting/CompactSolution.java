@@ -0,0 +1,348 @@
+package cloud.workflowScheduling.setting;
+
+import java.util.*;
+
+import cloud.workflowScheduling.monitor.*;
+
+//array-backed counterpart of Solution, for schedulers that build and compare many solutions of a workflow (e.g., PSO, LACO).
+//allocations are kept in primitive arrays indexed by task id: vmOf, start and finish; VMs are indexed by the value returned
+//by newVM, and tasks on a VM are kept in the same order as the allocation list of Solution. No object is created per allocation,
+//and reset() clears the content so that an instance can be reused; toSolution() converts it for the rest of the code
+public class CompactSolution {
+	private static final int INIT_VM_CAPACITY = 16;
+
+	private final Task[] tasks;				//indexed by task id
+	private final int[] vmOf;				//VM of each task; -1 means not allocated
+	private final double[] start, finish;
+
+	private int vmCount = 0;				//VMs created by newVM
+	private int[] vmTypes = new int[INIT_VM_CAPACITY];
+	private int[][] vmTasks = new int[INIT_VM_CAPACITY][];		//task ids on each VM, sorted like Solution
+	private int[] vmSizes = new int[INIT_VM_CAPACITY];
+	private int usedCount = 0;				//VMs with tasks, in the order their first tasks are added, i.e., keySet of Solution
+	private int[] usedVMs = new int[INIT_VM_CAPACITY];
+	//lease bounds and cost of each VM, updated whenever the allocations on the VM change, as in Solution
+	private double[] leaseStartTimes = new double[INIT_VM_CAPACITY], leaseEndTimes = new double[INIT_VM_CAPACITY];
+	private double[] vmCosts = new double[INIT_VM_CAPACITY];
+	//VMs created by newVM(type, leaseStartTime, leaseEndTime) keep this lease whatever their tasks, as in Solution.addLeasedVM
+	private boolean[] hasFixedLease = new boolean[INIT_VM_CAPACITY];
+	private double[] fixedLeaseStartTimes = new double[INIT_VM_CAPACITY], fixedLeaseEndTimes = new double[INIT_VM_CAPACITY];
+	private double cost = 0, makespan = -1;
+	private boolean isTotalValid = true;
+
+	public CompactSolution(Workflow wf){
+		int n = wf.size();
+		tasks = new Task[n];
+		for(Task t : wf)
+			tasks[t.getId()] = t;
+		vmOf = new int[n];
+		Arrays.fill(vmOf, -1);
+		start = new double[n];
+		finish = new double[n];
+	}
+
+	//clear all the allocations and VMs; the cost is proportional to the number of allocated tasks
+	public void reset(){
+		for(int i = 0; i < usedCount; i++){
+			int vm = usedVMs[i];
+			for(int j = 0; j < vmSizes[vm]; j++)
+				vmOf[vmTasks[vm][j]] = -1;
+		}
+		Arrays.fill(vmSizes, 0, vmCount, 0);
+		vmCount = 0;
+		usedCount = 0;
+		isTotalValid = false;
+	}
+
+	//create a VM; the VM is used once a task is added to it
+	public int newVM(int type){
+		if(vmCount == vmTypes.length){
+			int capacity = vmCount * 2;
+			vmTypes = Arrays.copyOf(vmTypes, capacity);
+			vmTasks = Arrays.copyOf(vmTasks, capacity);
+			vmSizes = Arrays.copyOf(vmSizes, capacity);
+			usedVMs = Arrays.copyOf(usedVMs, capacity);
+			leaseStartTimes = Arrays.copyOf(leaseStartTimes, capacity);
+			leaseEndTimes = Arrays.copyOf(leaseEndTimes, capacity);
+			vmCosts = Arrays.copyOf(vmCosts, capacity);
+			hasFixedLease = Arrays.copyOf(hasFixedLease, capacity);
+			fixedLeaseStartTimes = Arrays.copyOf(fixedLeaseStartTimes, capacity);
+			fixedLeaseEndTimes = Arrays.copyOf(fixedLeaseEndTimes, capacity);
+		}
+		vmTypes[vmCount] = type;
+		vmSizes[vmCount] = 0;
+		hasFixedLease[vmCount] = false;
+		return vmCount++;
+	}
+	//create a VM leased over [leaseStartTime, leaseEndTime] whatever tasks are added to it, e.g., a VM that is already
+	//leased when a workflow is rescheduled; it is used at once, and its tasks can only extend the lease
+	public int newVM(int type, double leaseStartTime, double leaseEndTime){
+		int vm = newVM(type);
+		hasFixedLease[vm] = true;
+		fixedLeaseStartTimes[vm] = leaseStartTime;
+		fixedLeaseEndTimes[vm] = leaseEndTime;
+		usedVMs[usedCount++] = vm;
+		updateLease(vm);
+		return vm;
+	}
+
+	public void copyFrom(CompactSolution s){
+		reset();
+		for(int k = 0; k < s.vmCount; k++){
+			newVM(s.vmTypes[k]);
+			hasFixedLease[k] = s.hasFixedLease[k];
+			fixedLeaseStartTimes[k] = s.fixedLeaseStartTimes[k];
+			fixedLeaseEndTimes[k] = s.fixedLeaseEndTimes[k];
+		}
+		for(int i = 0; i < s.usedCount; i++){
+			int vm = s.usedVMs[i];
+			if(hasFixedLease[vm])		//append does not add it to usedVMs
+				usedVMs[usedCount++] = vm;
+			for(int j = 0; j < s.vmSizes[vm]; j++){
+				int id = s.vmTasks[vm][j];
+				append(vm, id);
+				start[id] = s.start[id];
+				finish[id] = s.finish[id];
+			}
+			leaseStartTimes[vm] = s.leaseStartTimes[vm];
+			leaseEndTimes[vm] = s.leaseEndTimes[vm];
+			vmCosts[vm] = s.vmCosts[vm];
+		}
+		isTotalValid = false;
+	}
+
+	//----------------------------------------add a task-------------------------------------------
+	//isEnd denotes whether the task is placed at the end, or the beginning
+	public void addTaskToVM(int vm, Task task, double startTime, boolean isEnd){
+		Monitor.count(Counter.TASK_ADDS);
+		int id = task.getId();
+		if(isEnd)
+			append(vm, id);
+		else{
+			append(vm, id);
+			int[] list = vmTasks[vm];
+			System.arraycopy(list, 0, list, 1, vmSizes[vm] - 1);
+			list[0] = id;
+		}
+		start[id] = startTime;
+		finish[id] = startTime + task.getTaskSize() / VM.SPEEDS[vmTypes[vm]];
+		updateLease(vm);		//only the lease of vm can change, see Solution.addTaskToVM
+	}
+	//add a task at the end of vm with given start and finish times, e.g., a task that has run with its actual times
+	public void addTaskToVM(int vm, Task task, double startTime, double finishTime){
+		Monitor.count(Counter.TASK_ADDS);
+		int id = task.getId();
+		append(vm, id);
+		start[id] = startTime;
+		finish[id] = finishTime;
+		updateLease(vm);
+	}
+	private void append(int vm, int id){
+		int size = vmSizes[vm];
+		if(size == 0){
+			if(hasFixedLease[vm] == false)		//otherwise, it is used since created
+				usedVMs[usedCount++] = vm;
+			if(vmTasks[vm] == null)
+				vmTasks[vm] = new int[4];
+		}else if(size == vmTasks[vm].length)
+			vmTasks[vm] = Arrays.copyOf(vmTasks[vm], size * 2);
+		vmTasks[vm][size] = id;
+		vmSizes[vm] = size + 1;
+		vmOf[id] = vm;
+	}
+
+	//upgrade vm by one type; only the finish times of tasks on this VM are updated
+	public void updateVM(int vm){
+		updateVM(vm, vmTypes[vm] + 1);
+	}
+	//change the type of vm at once; the result is the same as upgrading it one type at a time
+	public void updateVM(int vm, int type){
+		vmTypes[vm] = type;
+		double speed = VM.SPEEDS[type];
+		for(int j = 0; j < vmSizes[vm]; j++){
+			int id = vmTasks[vm][j];
+			finish[id] = tasks[id].getTaskSize() / speed + start[id];
+		}
+		if(vmSizes[vm] > 0)
+			updateLease(vm);
+	}
+	
+	private void updateLease(int vm){
+		leaseStartTimes[vm] = calcVMLeaseStartTime(vm);
+		leaseEndTimes[vm] = calcVMLeaseEndTime(vm);
+		vmCosts[vm] = VM.UNIT_COSTS[vmTypes[vm]] * Math.ceil((leaseEndTimes[vm] - leaseStartTimes[vm])/VM.INTERVAL);
+		isTotalValid = false;
+	}
+
+	//----------------------------------------calculations-------------------------------------------
+	//calculate Earliest Starting Time of task on vm; vm = -1 means a new VM
+	public double calcEST(Task task, int vm){
+		Monitor.count(Counter.EST_CALCS);
+		double EST = 0;
+		for(Edge inEdge : task.getInEdges()){
+			int parent = inEdge.getSource().getId();
+			double arrivalTime = finish[parent];
+			if(vmOf[parent] != vm)
+				arrivalTime += inEdge.getDataSize() / VM.NETWORK_SPEED;
+			EST = Math.max(EST, arrivalTime);
+		}
+		if(vm == -1)
+			EST = Math.max(EST, VM.LAUNCH_TIME);
+		else
+			EST = Math.max(EST, this.getVMReadyTime(vm));
+		return EST;
+	}
+	//EST of task on a used vm as if vm were changed to type, i.e., calcEST after updateVM(vm, type), without changing vm
+	public double calcEST(Task task, int vm, int type){
+		Monitor.count(Counter.EST_CALCS);
+		double speed = VM.SPEEDS[type];
+		double EST = 0;
+		for(Edge inEdge : task.getInEdges()){
+			int parent = inEdge.getSource().getId();
+			double arrivalTime;
+			if(vmOf[parent] != vm)
+				arrivalTime = finish[parent] + inEdge.getDataSize() / VM.NETWORK_SPEED;
+			else
+				arrivalTime = tasks[parent].getTaskSize() / speed + start[parent];
+			EST = Math.max(EST, arrivalTime);
+		}
+		int lastTask = vmTasks[vm][vmSizes[vm] - 1];
+		return Math.max(EST, tasks[lastTask].getTaskSize() / speed + start[lastTask]);
+	}
+	//calculate ESTs of task on all the VMs at once: ESTs[vm] is set for each used VM, and the EST on a new VM is returned;
+	//ESTs.length must be at least getVMCount(). The data-arrival profile of task is built in one pass over its parents:
+	//the latest remote arrival together with the VM of that parent, the latest remote arrival from any other VM,
+	//and the latest local arrival on each VM of parents; it takes O(indegree + #VMs) instead of O(indegree * #VMs)
+	public double calcESTs(Task task, double[] ESTs){
+		Monitor.count(Counter.EST_CALCS);
+		double bestArrival = 0, secondArrival = 0;	//secondArrival is the latest remote arrival from VMs other than bestVM
+		int bestVM = -1;
+		for(Edge inEdge : task.getInEdges()){
+			int parent = inEdge.getSource().getId();
+			double arrivalTime = finish[parent] + inEdge.getDataSize() / VM.NETWORK_SPEED;
+			if(arrivalTime > bestArrival){
+				if(vmOf[parent] != bestVM)
+					secondArrival = bestArrival;
+				bestArrival = arrivalTime;
+				bestVM = vmOf[parent];
+			}else if(vmOf[parent] != bestVM)
+				secondArrival = Math.max(secondArrival, arrivalTime);
+		}
+		for(int i = 0; i < usedCount; i++){
+			int vm = usedVMs[i];
+			ESTs[vm] = Math.max(vm == bestVM ? secondArrival : bestArrival, this.getVMReadyTime(vm));
+		}
+		for(Edge inEdge : task.getInEdges()){		//data from a parent on the same VM arrives at its finish time
+			int parent = inEdge.getSource().getId();
+			int vm = vmOf[parent];
+			if(vm != -1)
+				ESTs[vm] = Math.max(ESTs[vm], finish[parent]);
+		}
+		return Math.max(bestArrival, VM.LAUNCH_TIME);
+	}
+
+	public double calcCost(){
+		if(isTotalValid == false)
+			calcTotals();
+		return cost;
+	}
+	public double calcVMCost(int vm){
+		return vmSizes[vm] == 0 && hasFixedLease[vm] == false ? 0 : vmCosts[vm];
+	}
+
+	public double calcMakespan(){
+		if(isTotalValid == false)
+			calcTotals();
+		return makespan;
+	}
+	private void calcTotals(){
+		cost = 0;
+		makespan = -1;
+		for(int i = 0; i < usedCount; i++){
+			cost += vmCosts[usedVMs[i]];
+			makespan = Math.max(makespan, this.getVMReadyTime(usedVMs[i]));
+		}
+		isTotalValid = true;
+	}
+
+	// compare this solution to Solution s; if ==, returns false; used by ACO, PSO
+	public boolean isBetterThan(CompactSolution s, double epsilonDeadline){
+		return Solution.isBetterThan(this.calcMakespan(), this.calcCost(), s.calcMakespan(), s.calcCost(), epsilonDeadline);
+	}
+
+	//convert to a Solution; VMs are numbered in the order they were created
+	public Solution toSolution(){
+		Solution solution = new Solution();
+		VM[] vms = new VM[vmCount];
+		for(int k = 0; k < vmCount; k++)
+			vms[k] = solution.newVM(vmTypes[k]);
+		for(int i = 0; i < usedCount; i++){
+			int vm = usedVMs[i];
+			if(hasFixedLease[vm])
+				solution.addLeasedVM(vms[vm], fixedLeaseStartTimes[vm], fixedLeaseEndTimes[vm]);
+			for(int j = 0; j < vmSizes[vm]; j++){
+				int id = vmTasks[vm][j];
+				solution.addTaskToVM(vms[vm], tasks[id], start[id], finish[id]);
+			}
+		}
+		return solution;
+	}
+
+	//----------------------------------------getters-------------------------------------------
+	//VM's lease start time and finish time are calculated based on allocations when they change, as in Solution
+	public double getVMLeaseStartTime(int vm){
+		return vmSizes[vm] == 0 && hasFixedLease[vm] == false ? VM.LAUNCH_TIME : leaseStartTimes[vm];
+	}
+	public double getVMLeaseEndTime(int vm){
+		return vmSizes[vm] == 0 && hasFixedLease[vm] == false ? VM.LAUNCH_TIME : leaseEndTimes[vm];
+	}
+	private double calcVMLeaseStartTime(int vm){
+		if(vmSizes[vm] == 0)
+			return hasFixedLease[vm] ? fixedLeaseStartTimes[vm] : VM.LAUNCH_TIME;
+		int firstTask = vmTasks[vm][0];
+		double maxTransferTime = 0;
+		for(Edge e : tasks[firstTask].getInEdges())
+			if(vmOf[e.getSource().getId()] != vm)		// parentTask's VM != vm
+				maxTransferTime = Math.max(maxTransferTime, e.getDataSize() / VM.NETWORK_SPEED);
+		double startTime = start[firstTask] - maxTransferTime;
+		return hasFixedLease[vm] ? Math.min(startTime, fixedLeaseStartTimes[vm]) : startTime;
+	}
+	private double calcVMLeaseEndTime(int vm){
+		if(vmSizes[vm] == 0)
+			return hasFixedLease[vm] ? fixedLeaseEndTimes[vm] : VM.LAUNCH_TIME;
+		int lastTask = vmTasks[vm][vmSizes[vm] - 1];
+		double maxTransferTime = 0;
+		for(Edge e : tasks[lastTask].getOutEdges())
+			if(vmOf[e.getDestination().getId()] != vm)	// childTask's VM != vm
+				maxTransferTime = Math.max(maxTransferTime, e.getDataSize() / VM.NETWORK_SPEED);
+		double endTime = finish[lastTask] + maxTransferTime;
+		return hasFixedLease[vm] ? Math.max(endTime, fixedLeaseEndTimes[vm]) : endTime;
+	}
+	public double getVMReadyTime(int vm){		//finish time of the last task
+		if(vmSizes[vm] == 0)
+			return VM.LAUNCH_TIME;
+		return finish[vmTasks[vm][vmSizes[vm] - 1]];
+	}
+	public int getVMType(int vm){
+		return vmTypes[vm];
+	}
+	public int getVMCount(){		//number of VMs created by newVM
+		return vmCount;
+	}
+	//VMs with tasks or fixed leases are getUsedVM(0) .. getUsedVM(getUsedVMCount()-1)
+	public int getUsedVMCount(){
+		return usedCount;
+	}
+	public int getUsedVM(int index){
+		return usedVMs[index];
+	}
+	public int getVM(Task task){
+		return vmOf[task.getId()];
+	}
+	public double getStartTime(Task task){
+		return start[task.getId()];
+	}
+	public double getFinishTime(Task task){
+		return finish[task.getId()];
+	}
+}
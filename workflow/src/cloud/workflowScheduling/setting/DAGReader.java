@@ -0,0 +1,225 @@
+package cloud.workflowScheduling.setting;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+//reader of the .dag text format shipped next to each DAX file:
+//	FILE name size | TASK id name runtime | INPUTS id file... | OUTPUTS id file... | EDGE parent child
+//the file is memory-mapped and tokenized directly from the byte buffer; a String is only created once
+//for each task and each referenced file, while references in INPUTS, OUTPUTS and EDGE lines are resolved in place
+class DAGReader extends WorkflowReader {
+	private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+	private ByteBuffer buf;
+	private int pos, limit;
+	private int tokenStart, tokenEnd;		//the last token read by nextToken()
+
+	private SymbolTable<TransferData> files = new SymbolTable<TransferData>();
+	private SymbolTable<Task> tasks = new SymbolTable<Task>();
+
+	void read(String file) throws IOException{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try{
+			FileChannel channel = raf.getChannel();
+			buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());	//the mapping outlives the channel
+		}finally{
+			raf.close();
+		}
+		pos = 0;
+		limit = buf.limit();
+
+		while(nextToken()){
+			byte b = buf.get(tokenStart);
+			if(b == 'F' && isKeyword("FILE")){
+				nextToken();
+				int nameStart = tokenStart, nameEnd = tokenEnd;
+				nextToken();
+				String name = newString(nameStart, nameEnd);
+				files.put(buf, nameStart, nameEnd, new TransferData(name, parseLong()));
+			}else if(b == 'T' && isKeyword("TASK")){
+				nextToken();
+				int idStart = tokenStart, idEnd = tokenEnd;
+				nextToken();								//name of the executable, not used
+				nextToken();
+				String id = newString(idStart, idEnd);
+				if(nameTaskMapping.containsKey(id))		//id conflicts
+					throw new RuntimeException();
+				Task t = newTask(id, parseDouble());
+				nameTaskMapping.put(id, t);
+				tasks.put(buf, idStart, idEnd, t);
+			}else if(b == 'I' && isKeyword("INPUTS")){
+				Task t = nextTask();
+				while(nextTokenInLine())
+					use(t).addDestination(t);
+			}else if(b == 'O' && isKeyword("OUTPUTS")){
+				Task t = nextTask();
+				while(nextTokenInLine())
+					use(t).setSource(t);
+			}else if(b == 'E' && isKeyword("EDGE")){
+				Task parent = nextTask();
+				Task child = nextTask();
+				addEdge(parent, child);
+			}
+			skipLine();
+		}
+		buf = null;
+	}
+
+	//the file named by the current token, which is used by task t
+	private TransferData use(Task t){
+		TransferData td = files.get(buf, tokenStart, tokenEnd);
+		if(td == null)
+			throw new RuntimeException("undefined file in " + t.getName() + ": " + newString(tokenStart, tokenEnd));
+		if(td.getSource() == null && td.getDestinations().size() == 0)		//referenced for the first time
+			transferData.put(td.getName(), td);
+		return td;
+	}
+	private Task nextTask(){
+		nextTokenInLine();
+		Task t = tasks.get(buf, tokenStart, tokenEnd);
+		if(t == null)
+			throw new RuntimeException("undefined task: " + newString(tokenStart, tokenEnd));
+		return t;
+	}
+
+	//----------------------------------------tokenizer-------------------------------------------
+	//move to the next token, possibly on a following line; returns false at the end of buffer
+	private boolean nextToken(){
+		while(pos < limit && isSpace(buf.get(pos)))
+			pos++;
+		return readToken();
+	}
+	//move to the next token on the current line; returns false at the end of line
+	private boolean nextTokenInLine(){
+		while(pos < limit && isBlank(buf.get(pos)))
+			pos++;
+		return readToken();
+	}
+	private boolean readToken(){
+		if(pos >= limit || isSpace(buf.get(pos)))
+			return false;
+		tokenStart = pos;
+		while(pos < limit && !isSpace(buf.get(pos)))
+			pos++;
+		tokenEnd = pos;
+		return true;
+	}
+	private void skipLine(){
+		while(pos < limit && buf.get(pos) != '\n')
+			pos++;
+	}
+	private static boolean isBlank(byte b){
+		return b == ' ' || b == '\t' || b == '\r';
+	}
+	private static boolean isSpace(byte b){
+		return isBlank(b) || b == '\n';
+	}
+	private boolean isKeyword(String keyword){
+		if(tokenEnd - tokenStart != keyword.length())
+			return false;
+		for(int i = 0; i < keyword.length(); i++)
+			if(buf.get(tokenStart + i) != keyword.charAt(i))
+				return false;
+		return true;
+	}
+	private String newString(int start, int end){
+		char[] chars = new char[end - start];		//only ASCII is expected in the names of .dag files
+		for(int i = start; i < end; i++)
+			chars[i - start] = (char)(buf.get(i) & 0xff);
+		return new String(chars);
+	}
+
+	private long parseLong(){
+		long value = 0;
+		for(int i = tokenStart; i < tokenEnd; i++){
+			byte b = buf.get(i);
+			if(b < '0' || b > '9')
+				return Long.parseLong(newString(tokenStart, tokenEnd));
+			value = value * 10 + (b - '0');
+		}
+		return value;
+	}
+	//digits with an optional fraction are converted exactly (mantissa < 2^53, at most 22 decimals), which gives
+	//the same double as Double.parseDouble; anything else falls back to Double.parseDouble
+	private double parseDouble(){
+		long mantissa = 0;
+		int decimals = -1;
+		for(int i = tokenStart; i < tokenEnd; i++){
+			byte b = buf.get(i);
+			if(b == '.' && decimals == -1)
+				decimals = 0;
+			else if(b >= '0' && b <= '9' && mantissa < (1L << 53) / 10){
+				mantissa = mantissa * 10 + (b - '0');
+				if(decimals != -1)
+					decimals++;
+			}else
+				return Double.parseDouble(newString(tokenStart, tokenEnd));
+		}
+		if(decimals > 22)
+			return Double.parseDouble(newString(tokenStart, tokenEnd));
+		return decimals <= 0 ? mantissa : mantissa / POW10[decimals];
+	}
+
+	//--------------------------private classes--------------------------------------------
+	//open-addressing hash table keyed by byte ranges of the buffer, so that lookups need no String
+	private static class SymbolTable<V>{
+		private int[] starts = new int[64], ends = new int[64];
+		private Object[] values = new Object[64];
+		private int size = 0;
+
+		void put(ByteBuffer buf, int start, int end, V value){
+			if((size + 1) * 2 > values.length)
+				resize(buf);
+			int i = indexOf(buf, values, starts, ends, start, end);
+			if(values[i] == null)
+				size++;
+			starts[i] = start;
+			ends[i] = end;
+			values[i] = value;
+		}
+		@SuppressWarnings("unchecked")
+		V get(ByteBuffer buf, int start, int end){
+			return (V)values[indexOf(buf, values, starts, ends, start, end)];
+		}
+
+		//slot of the key, or the empty slot where it should be placed
+		private static int indexOf(ByteBuffer buf, Object[] values, int[] starts, int[] ends, int start, int end){
+			int mask = values.length - 1;
+			int i = hash(buf, start, end) & mask;
+			while(values[i] != null && !equals(buf, starts[i], ends[i], start, end))
+				i = (i + 1) & mask;
+			return i;
+		}
+		private void resize(ByteBuffer buf){
+			int[] newStarts = new int[starts.length * 2], newEnds = new int[ends.length * 2];
+			Object[] newValues = new Object[values.length * 2];
+			for(int j = 0; j < values.length; j++){
+				if(values[j] == null)
+					continue;
+				int i = indexOf(buf, newValues, newStarts, newEnds, starts[j], ends[j]);
+				newStarts[i] = starts[j];
+				newEnds[i] = ends[j];
+				newValues[i] = values[j];
+			}
+			starts = newStarts;
+			ends = newEnds;
+			values = newValues;
+		}
+		private static int hash(ByteBuffer buf, int start, int end){
+			int h = 0;
+			for(int i = start; i < end; i++)
+				h = 31 * h + buf.get(i);
+			return h ^ (h >>> 16);
+		}
+		private static boolean equals(ByteBuffer buf, int start1, int end1, int start2, int end2){
+			if(end1 - start1 != end2 - start2)
+				return false;
+			for(int i = 0; i < end1 - start1; i++)
+				if(buf.get(start1 + i) != buf.get(start2 + i))
+					return false;
+			return true;
+		}
+	}
+}
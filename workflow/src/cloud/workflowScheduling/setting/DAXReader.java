@@ -0,0 +1,80 @@
+package cloud.workflowScheduling.setting;
+
+import java.io.*;
+import java.util.zip.*;
+import javax.xml.stream.*;
+
+//streaming reader of DAX files (plain or gzip-compressed), used by the constructor of Workflow
+//only the elements job, uses, child and parent are kept; nothing else of the document is held in memory
+class DAXReader extends WorkflowReader {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	void read(String file) throws IOException, XMLStreamException{
+		InputStream in = open(file);
+		XMLStreamReader reader = null;
+		try{
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+			reader = factory.createXMLStreamReader(in);
+
+			int depth = 0;
+			int jobDepth = -1;		//depth of the current element "job"; -1 means outside of "job"
+			Task lastTask = null;
+			Task child = null;
+			while(reader.hasNext()){
+				int event = reader.next();
+				if(event == XMLStreamConstants.START_ELEMENT){
+					depth++;
+					String name = reader.getLocalName();
+					if(name.equals("job")){
+						String id = reader.getAttributeValue(null, "id");
+						if(nameTaskMapping.containsKey(id))		//id conflicts
+							throw new RuntimeException();
+						lastTask = newTask(id, Double.parseDouble(reader.getAttributeValue(null, "runtime")));
+						nameTaskMapping.put(id, lastTask);
+						jobDepth = depth;
+					}else if(name.equals("uses") && depth == jobDepth + 1){
+						//After reading the element "job", the element "uses" means a trasferData (i.e., data flow)
+						String filename = reader.getAttributeValue(null, "file");
+						long fileSize = Long.parseLong(reader.getAttributeValue(null, "size"));
+						TransferData td = transferData.get(filename);
+						if(td == null){
+							td = new TransferData(filename, fileSize);
+							transferData.put(filename, td);
+						}
+						if(reader.getAttributeValue(null, "link").equals("input"))
+							td.addDestination(lastTask);
+						else									//output
+							td.setSource(lastTask);
+					}else if(name.equals("child")){
+						child = nameTaskMapping.get(reader.getAttributeValue(null, "ref"));
+					}else if(name.equals("parent")){
+						//After reading the element "child", the element "parent" means an edge (i.e., control flow)
+						Task parent = nameTaskMapping.get(reader.getAttributeValue(null, "ref"));
+						addEdge(parent, child);
+					}
+				}else if(event == XMLStreamConstants.END_ELEMENT){
+					if(depth == jobDepth)
+						jobDepth = -1;
+					depth--;
+				}
+			}
+		}finally{
+			if(reader != null)
+				reader.close();
+			in.close();
+		}
+	}
+
+	// the gzip format is recognized by its magic number, rather than the file extension
+	private static InputStream open(String file) throws IOException{
+		InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+		in.mark(2);
+		int b1 = in.read(), b2 = in.read();
+		in.reset();
+		if(b1 == (GZIPInputStream.GZIP_MAGIC & 0xff) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8))
+			return new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+		return in;
+	}
+}
@@ -0,0 +1,97 @@
+package cloud.workflowScheduling.setting;
+
+import java.util.*;
+
+//samples pURank of tasks for a theta, see Workflow.calcPURank. In a sample, the transfer time of edge k is counted unless
+//a uniform random number exceeds d[k] = 1 - theta^(-et/tt), where et is the execution time of its destination on the fastest
+//VM; d is computed once here, instead of calling Math.pow on each edge in each sample. A sampler is immutable, and
+//may be shared by threads as long as each thread uses its own random numbers
+public class PURankSampler {
+	private final TaskGraph graph;
+	private final double theta;
+	private final double[] d;			//indexed by the child edges of graph; null if theta = Double.MAX_VALUE
+
+	PURankSampler(TaskGraph graph, double theta){
+		this.graph = graph;
+		this.theta = theta;
+		if(theta == Double.MAX_VALUE){		// all the transfer times are counted
+			d = null;
+			return;
+		}
+		double speed = VM.SPEEDS[VM.FASTEST];
+		int[] childStart = graph.getChildStart(), children = graph.getChildren();
+		double[] childTT = graph.getChildTransferTimes(), taskSizes = graph.getTaskSizes();
+		d = new double[children.length];
+		for(int j = 0; j < graph.size(); j++){
+			for(int k = childStart[j]; k < childStart[j+1]; k++){
+				double et = taskSizes[children[k]] / speed;
+				d[k] = 1-Math.pow(theta, -et / childTT[k]);	//网络传输时间越大，d取值越接近于1
+			}
+		}
+	}
+
+	public double getTheta(){
+		return theta;
+	}
+
+	//one sample, indexed by task id; it draws the same random numbers as Workflow.calcPURank always did
+	public double[] sample(Random rnd){
+		double speed = VM.SPEEDS[VM.FASTEST];
+		int[] childStart = graph.getChildStart(), children = graph.getChildren();
+		double[] childTT = graph.getChildTransferTimes(), taskSizes = graph.getTaskSizes();
+		double[] pURanks = new double[graph.size()];		//indexed by graph index here
+		for(int j= graph.size()-1; j>=0; j--){
+			double pURank = 0;
+			for(int k = childStart[j]; k < childStart[j+1]; k++){
+				int flag = 1;
+				if(d != null && d[k] < rnd.nextDouble())
+					flag = 0;
+				pURank = Math.max(pURank, pURanks[children[k]] + flag * childTT[k]);
+			}
+			pURanks[j] = pURank + taskSizes[j] / speed;
+		}
+		return toIdIndexed(pURanks, 1, 0);
+	}
+
+	//count independent samples computed in one backward pass over the graph, with a xorshift generator seeded by seed;
+	//the result is indexed by sample and then by task id
+	public double[][] sample(int count, long seed){
+		double speed = VM.SPEEDS[VM.FASTEST];
+		int[] childStart = graph.getChildStart(), children = graph.getChildren();
+		double[] childTT = graph.getChildTransferTimes(), taskSizes = graph.getTaskSizes();
+		long x = seed == 0 ? 0x2545F4914F6CDD1DL : seed;		//state of xorshift, which must not be 0
+		double[] ranks = new double[graph.size() * count];		//ranks[j*count + s]: task j (graph index) in sample s
+		for(int j= graph.size()-1; j>=0; j--){
+			int base = j * count;
+			for(int k = childStart[j]; k < childStart[j+1]; k++){
+				int childBase = children[k] * count;
+				double tt = childTT[k];
+				for(int s = 0; s < count; s++){
+					double transferTime = tt;
+					if(d != null){
+						x ^= x << 13;
+						x ^= x >>> 7;
+						x ^= x << 17;
+						if(d[k] < (x >>> 11) * 0x1.0p-53)
+							transferTime = 0;
+					}
+					ranks[base + s] = Math.max(ranks[base + s], ranks[childBase + s] + transferTime);
+				}
+			}
+			double et = taskSizes[j] / speed;
+			for(int s = 0; s < count; s++)
+				ranks[base + s] += et;
+		}
+		double[][] samples = new double[count][];
+		for(int s = 0; s < count; s++)
+			samples[s] = toIdIndexed(ranks, count, s);
+		return samples;
+	}
+
+	private double[] toIdIndexed(double[] ranks, int stride, int offset){
+		double[] result = new double[graph.size()];
+		for(int j = 0; j < graph.size(); j++)
+			result[graph.getTask(j).getId()] = ranks[j * stride + offset];
+		return result;
+	}
+}
@@ -1,218 +1,286 @@
-package cloud.workflowScheduling.setting;
-
-import java.util.*;
-
-import cloud.workflowScheduling.*;
-
-
-//Allocation List is sorted based on startTime
-public class Solution extends HashMap<VM, LinkedList<Allocation>>{
-
-	private static final long serialVersionUID = 1L;
-	
-	//the content in revMapping is the same as that in HashMap<VM, LinkedList<Allocation>>
-	//used to make get_Allocation_by_Task easy 
-	private HashMap<Task, Allocation> revMapping = new HashMap<Task, Allocation>();	//reverseMapping
-	
-	public Solution() {
-		super();
-		VM.resetInternalId();
-	}
-	
-	//----------------------------------------add a task-------------------------------------------
-	//isEnd denotes whether the task is placed at the end, or the beginning
-	public void addTaskToVM(VM vm, Task task, double startTime, boolean isEnd){
-		if(this.containsKey(vm) == false)
-			this.put(vm, new LinkedList<Allocation>());
-		
-		Allocation alloc = new Allocation(vm, task, startTime);
-		
-		boolean conflict = false;				//check whether there is time conflict
-		double startTime1 = alloc.getStartTime();
-		double finishTime1 = alloc.getFinishTime();
-		for(Allocation prevAlloc : this.get(vm)){
-			double startTime2 = prevAlloc.getStartTime();
-			double finishTime2 = prevAlloc.getFinishTime();
-			if((startTime1>startTime2 && startTime2>finishTime1)	  //startTime2 is between startTime1 and finishTime1
-				|| (startTime2>startTime1 && startTime1>finishTime2)) //startTime1 is between startTime2 and finishTime2
-				conflict = true;
-		}
-		if(conflict)
-			throw new RuntimeException("Critical Error: Allocation conflicts");
-
-		if(isEnd)
-			this.get(vm).add(alloc);
-		else
-			this.get(vm).add(0, alloc);
-		revMapping.put(alloc.getTask(), alloc);
-	}
-	
-
-	
-	public void updateVM(VM vm){		//иVMϵĸ£vmľͲ漰
-		vm.setType(vm.getType()+1);
-		
-		LinkedList<Allocation> list = this.get(vm);
-		if(list == null)
-			return;
-		for(Allocation alloc : list){
-			double newFinishTime = alloc.getTask().getTaskSize() / vm.getSpeed() + alloc.getStartTime();
-			alloc.setFinishTime(newFinishTime);
-		}
-	}
-
-	//----------------------------------------calculations-------------------------------------------
-	//calculate Earliest Starting Time of task on vm	
-	public double calcEST(Task task, VM vm){
-		double EST = 0; 			
-		for(Edge inEdge : task.getInEdges()){
-			Task parent = inEdge.getSource();
-			Allocation alloc = revMapping.get(parent);
-			VM parentVM = alloc.getVM();
-			double arrivalTime = alloc.getFinishTime();
-			if( parentVM != vm )
-				arrivalTime += inEdge.getDataSize() / VM.NETWORK_SPEED;
-			EST = Math.max(EST, arrivalTime);
-		}
-		if(vm == null)
-			EST = Math.max(EST, VM.LAUNCH_TIME);
-		else
-			EST = Math.max(EST, this.getVMReadyTime(vm));
-		return EST;
-	}
-	
-	public double calcCost(){
-		double totalCost = 0;
-		for(VM vm : this.keySet()){
-			double vmCost = calcVMCost(vm); 
-			totalCost += vmCost;
-		}
-		return totalCost;
-	}
-	public double calcVMCost(VM vm){
-		return vm.getUnitCost() * Math.ceil((this.getVMLeaseEndTime(vm) - this.getVMLeaseStartTime(vm))/VM.INTERVAL);
-	}
-	
-	
-	public double calcMakespan(){
-		double makespan = -1;
-		for(VM vm : this.keySet()){
-			double finishTime = this.getVMReadyTime(vm);	//finish time of the last task
-			if(finishTime > makespan)
-				makespan = finishTime;
-		}
-		return makespan;
-	}
-
-	// compare this solution to Solution s; if ==, returns false; used by ACO, PSO
-	public boolean isBetterThan(Solution s, double epsilonDeadline){
-		double makespan1 = this.calcMakespan();
-		double makespan2 = s.calcMakespan();
-		double cost1 = this.calcCost();
-		double cost2 = s.calcCost();
-		
-		if(makespan1 <= epsilonDeadline && makespan2<= epsilonDeadline ){	//both satisfy deadline
-			return cost1<cost2;
-		}else if(makespan1 > epsilonDeadline && makespan2 > epsilonDeadline ){//both does not satisfy
-			return makespan1<makespan2;
-		}else if(makespan1 <= epsilonDeadline && makespan2 > epsilonDeadline){ //this satisfys doesn't
-			return true;
-		}else if(makespan1 > epsilonDeadline && makespan2 <= epsilonDeadline) //this don'ts satisfies
-			return false;
-		
-		return true;
-	}
-	//check whether there is time conflict in this schedule solution
-	public boolean validate(Workflow wf){
-		List<Allocation> list = new ArrayList<Allocation>(revMapping.values());
-		
-		Set<Task> set = new HashSet<Task>();
-		for(Allocation alloc : list)
-			set.add(alloc.getTask());
-		if(set.size() != wf.size())	{	//check # of tasks
-			return false;
-		}
-		
-//		Collections.sort(list);			//Ѹsolutionеtaskʱ˳УǷ
-		for(Allocation alloc : list){
-			Task task = alloc.getTask();	// check each task and its children
-			for(Edge e : task.getOutEdges()){
-				Task child = e.getDestination();
-				
-				Allocation childAlloc = this.revMapping.get(child);
-				boolean isValid = false;
-				if(alloc.getVM() != childAlloc.getVM() 				
-						&& alloc.getFinishTime() +e.getDataSize()/VM.NETWORK_SPEED <= childAlloc.getStartTime()+ Evaluate.E)
-					isValid = true;
-				else if(alloc.getVM() == childAlloc.getVM() 				
-						&& alloc.getFinishTime() <= childAlloc.getStartTime() + Evaluate.E)
-					isValid = true;
-				if(isValid == false)
-					return false;
-			}
-		}
-		return true;
-	}
-		
-	//----------------------------------------getters-------------------------------------------
-	//VM's lease start time and finish time are calculated based on allocations
-	public double getVMLeaseStartTime(VM vm){	
-		if(this.get(vm).size() == 0)
-			return VM.LAUNCH_TIME;
-		else{
-			Task firstTask = this.get(vm).get(0).getTask();
-			double ftStartTime = this.get(vm).get(0).getStartTime(); // startTime of first task
-			
-			double maxTransferTime = 0;
-			for(Edge e : firstTask.getInEdges()){
-				Allocation alloc = revMapping.get(e.getSource());
-				if(alloc == null || alloc.getVM() != vm)		// parentTask's VM != vm
-					maxTransferTime = Math.max(maxTransferTime, e.getDataSize() / VM.NETWORK_SPEED);
-			}
-			return ftStartTime - maxTransferTime;
-		}
-	}
-	public double getVMLeaseEndTime(VM vm){
-		if(this.get(vm)== null || this.get(vm).size() == 0)
-			return VM.LAUNCH_TIME;
-		else{
-			LinkedList<Allocation> allocations = this.get(vm);
-			
-			Task lastTask = allocations.get(allocations.size()-1).getTask();
-			double ltFinishTime = allocations.get(allocations.size()-1).getFinishTime(); // finishTime of last task
-			
-			double maxTransferTime = 0;
-			for(Edge e : lastTask.getOutEdges()){
-				Allocation alloc = revMapping.get(e.getDestination());
-				if(alloc == null || alloc.getVM() != vm)		// childTask's VM != vm
-					maxTransferTime = Math.max(maxTransferTime, e.getDataSize() / VM.NETWORK_SPEED);
-			}
-			return ltFinishTime + maxTransferTime;
-		}
-	}
-	//note the difference between VMReadyTime and VMLeaseEndTime.
-	public double getVMReadyTime(VM vm){		//finish time of the last task
-		if(this.get(vm)== null || this.get(vm).size() == 0)
-			return VM.LAUNCH_TIME;
-		else{
-			LinkedList<Allocation> allocations = this.get(vm);
-			return allocations.get(allocations.size()-1).getFinishTime(); 
-		}
-	}
-	public HashMap<Task, Allocation> getRevMapping() {
-		return revMapping;
-	}
-
-	//----------------------------------------override-------------------------------------------
-	public String toString() {
-		StringBuilder sb = new StringBuilder();
-		sb.append("required cost" + this.calcCost() + "\trequired time" + this.calcMakespan()+"\r\n");
-		for(VM vm : this.keySet()){
-			sb.append(vm.toString() + this.get(vm).toString()+"\r\n");
-		}
-		return sb.toString();
-	}
-	
-	// ----------------------------------these three functions only used by ICPCP-------------------
-
+package cloud.workflowScheduling.setting;
+
+import java.util.*;
+
+import cloud.workflowScheduling.*;
+import cloud.workflowScheduling.monitor.*;
+
+
+//Allocation List is sorted based on startTime; it is a Timeline, so that inserting and indexed access take O(log n),
+//and it must only be changed through Solution (e.g., addTaskToVM)
+//VMs are iterated in the order their first tasks are added, as in CompactSolution; so results do not depend on hash codes
+public class Solution extends LinkedHashMap<VM, List<Allocation>>{
+
+	private static final long serialVersionUID = 1L;
+	
+	//the content in revMapping is the same as that in HashMap<VM, List<Allocation>>
+	//used to make get_Allocation_by_Task easy 
+	private HashMap<Task, Allocation> revMapping = new HashMap<Task, Allocation>();	//reverseMapping
+	//lease bounds and cost of each VM, updated whenever the allocations on the VM change, so reading them is O(1)
+	private HashMap<VM, Lease> leases = new HashMap<VM, Lease>();
+	//cost and makespan of the solution; they are summed up from leases when read after a change
+	private double cost = 0, makespan = -1;
+	private boolean isTotalValid = true;
+	private int vmCount = 0;		//used to number the VMs created by this solution
+	
+	public Solution() {
+		super();
+	}
+	
+	//create a VM with an id unique in this solution; the VM is used once a task is added to it
+	public VM newVM(int type){
+		return new VM(vmCount++, type);
+	}
+	
+	//----------------------------------------add a task-------------------------------------------
+	//the allocation is inserted in order of start time; 
+	//isEnd denotes whether the task is placed after, or before, the allocations with the same start time
+	//throws a RuntimeException if it conflicts with an allocation on vm
+	public void addTaskToVM(VM vm, Task task, double startTime, boolean isEnd){
+		addAllocation(new Allocation(vm, task, startTime), isEnd);
+	}
+	//add a task with given start and finish times, e.g., a task that has run, whose actual finish time is not
+	//startTime + taskSize / speed; it is placed after the allocations with the same start time
+	public void addTaskToVM(VM vm, Task task, double startTime, double finishTime){
+		Allocation alloc = new Allocation(vm, task, startTime);
+		alloc.setFinishTime(finishTime);
+		addAllocation(alloc, true);
+	}
+	//add vm leased over [startTime, endTime] whatever tasks are added to it, e.g., a VM that is already leased when
+	//a workflow is rescheduled; its tasks can only extend the lease. It is called before any task is added to vm
+	public void addLeasedVM(VM vm, double startTime, double endTime){
+		Lease lease = new Lease();
+		lease.fixedStartTime = startTime;
+		lease.fixedEndTime = endTime;
+		this.put(vm, new Timeline());
+		leases.put(vm, lease);
+		updateLease(vm);
+	}
+	private void addAllocation(Allocation alloc, boolean isEnd){
+		Monitor.count(Counter.TASK_ADDS);
+		VM vm = alloc.getVM();
+		if(this.containsKey(vm) == false){
+			this.put(vm, new Timeline());
+			leases.put(vm, new Lease());
+		}
+		
+		((Timeline)this.get(vm)).insert(alloc, isEnd);
+		revMapping.put(alloc.getTask(), alloc);
+		//only the lease of vm can change: for a parent or child of task on another VM, task is counted as remote
+		//by that VM both before (not allocated) and after this allocation
+		updateLease(vm);
+	}
+	
+
+	
+	public void updateVM(VM vm){		//这里仅进行该VM上的更新，其他的vm的就不再涉及了
+		vm.setType(vm.getType()+1);
+		
+		List<Allocation> list = this.get(vm);
+		if(list == null)
+			return;
+		Timeline timeline = new Timeline();
+		for(Allocation alloc : list){
+			double newFinishTime = alloc.getTask().getTaskSize() / vm.getSpeed() + alloc.getStartTime();
+			alloc.setFinishTime(newFinishTime);
+			timeline.insert(alloc, true);
+		}
+		this.put(vm, timeline);		//the order of VMs does not change
+		updateLease(vm);
+	}
+	
+	private void updateLease(VM vm){
+		Lease lease = leases.get(vm);
+		if(this.get(vm).size() == 0){		//a leased VM without tasks, see addLeasedVM
+			lease.startTime = lease.fixedStartTime;
+			lease.endTime = lease.fixedEndTime;
+		}else{
+			lease.startTime = Math.min(lease.fixedStartTime, calcVMLeaseStartTime(vm));
+			lease.endTime = Math.max(lease.fixedEndTime, calcVMLeaseEndTime(vm));
+		}
+		lease.cost = vm.getUnitCost() * Math.ceil((lease.endTime - lease.startTime)/VM.INTERVAL);
+		isTotalValid = false;
+	}
+	
+	//search a time slot in vm between EST and LFT for an allocation of duration
+	//returning -1 means it can not be placed to this vm between EST and LFT
+	public double searchStartTime(VM vm, double duration, double EST, double LFT){
+		Timeline timeline = (Timeline)this.get(vm);
+		if(timeline == null)
+			timeline = new Timeline();
+		return timeline.searchStartTime(duration, EST, LFT);
+	}
+
+	//----------------------------------------calculations-------------------------------------------
+	//calculate Earliest Starting Time of task on vm	
+	public double calcEST(Task task, VM vm){
+		Monitor.count(Counter.EST_CALCS);
+		double EST = 0; 			
+		for(Edge inEdge : task.getInEdges()){
+			Task parent = inEdge.getSource();
+			Allocation alloc = revMapping.get(parent);
+			VM parentVM = alloc.getVM();
+			double arrivalTime = alloc.getFinishTime();
+			if( parentVM != vm )
+				arrivalTime += inEdge.getDataSize() / VM.NETWORK_SPEED;
+			EST = Math.max(EST, arrivalTime);
+		}
+		if(vm == null)
+			EST = Math.max(EST, VM.LAUNCH_TIME);
+		else
+			EST = Math.max(EST, this.getVMReadyTime(vm));
+		return EST;
+	}
+	
+	public double calcCost(){
+		if(isTotalValid == false)
+			calcTotals();
+		return cost;
+	}
+	public double calcVMCost(VM vm){
+		Lease lease = leases.get(vm);
+		return lease == null ? 0 : lease.cost;
+	}
+	
+	
+	public double calcMakespan(){
+		if(isTotalValid == false)
+			calcTotals();
+		return makespan;
+	}
+	private void calcTotals(){
+		cost = 0;
+		makespan = -1;
+		for(VM vm : this.keySet()){
+			cost += leases.get(vm).cost;
+			double finishTime = this.getVMReadyTime(vm);	//finish time of the last task
+			if(finishTime > makespan)
+				makespan = finishTime;
+		}
+		isTotalValid = true;
+	}
+
+	// compare this solution to Solution s; if ==, returns false; used by ACO, PSO
+	public boolean isBetterThan(Solution s, double epsilonDeadline){
+		return isBetterThan(this.calcMakespan(), this.calcCost(), s.calcMakespan(), s.calcCost(), epsilonDeadline);
+	}
+	//shared with CompactSolution, and schedulers that compare cached makespans and costs (see methods.ScheduleCache)
+	public static boolean isBetterThan(double makespan1, double cost1, double makespan2, double cost2, double epsilonDeadline){
+		if(makespan1 <= epsilonDeadline && makespan2<= epsilonDeadline ){	//both satisfy deadline
+			return cost1<cost2;
+		}else if(makespan1 > epsilonDeadline && makespan2 > epsilonDeadline ){//both does not satisfy
+			return makespan1<makespan2;
+		}else if(makespan1 <= epsilonDeadline && makespan2 > epsilonDeadline){ //this satisfy，s doesn't
+			return true;
+		}else if(makespan1 > epsilonDeadline && makespan2 <= epsilonDeadline) //this don't，s satisfies
+			return false;
+		
+		return true;
+	}
+	//check whether there is time conflict in this schedule solution
+	public boolean validate(Workflow wf){
+		List<Allocation> list = new ArrayList<Allocation>(revMapping.values());
+		
+		Set<Task> set = new HashSet<Task>();
+		for(Allocation alloc : list)
+			set.add(alloc.getTask());
+		if(set.size() != wf.size())	{	//check # of tasks
+			return false;
+		}
+		
+//		Collections.sort(list);			//把该solution当中的task以时间顺序排列，并检测是否是拓扑排序
+		for(Allocation alloc : list){
+			Task task = alloc.getTask();	// check each task and its children
+			for(Edge e : task.getOutEdges()){
+				Task child = e.getDestination();
+				
+				Allocation childAlloc = this.revMapping.get(child);
+				boolean isValid = false;
+				if(alloc.getVM() != childAlloc.getVM() 				
+						&& alloc.getFinishTime() +e.getDataSize()/VM.NETWORK_SPEED <= childAlloc.getStartTime()+ Evaluate.E)
+					isValid = true;
+				else if(alloc.getVM() == childAlloc.getVM() 				
+						&& alloc.getFinishTime() <= childAlloc.getStartTime() + Evaluate.E)
+					isValid = true;
+				if(isValid == false)
+					return false;
+			}
+		}
+		return true;
+	}
+		
+	//----------------------------------------getters-------------------------------------------
+	//VM's lease start time and finish time are calculated based on allocations, when they change
+	public double getVMLeaseStartTime(VM vm){
+		Lease lease = leases.get(vm);
+		return lease == null ? VM.LAUNCH_TIME : lease.startTime;
+	}
+	public double getVMLeaseEndTime(VM vm){
+		Lease lease = leases.get(vm);
+		return lease == null ? VM.LAUNCH_TIME : lease.endTime;
+	}
+	private double calcVMLeaseStartTime(VM vm){	
+		if(this.get(vm).size() == 0)
+			return VM.LAUNCH_TIME;
+		else{
+			Task firstTask = this.get(vm).get(0).getTask();
+			double ftStartTime = this.get(vm).get(0).getStartTime(); // startTime of first task
+			
+			double maxTransferTime = 0;
+			for(Edge e : firstTask.getInEdges()){
+				Allocation alloc = revMapping.get(e.getSource());
+				if(alloc == null || alloc.getVM() != vm)		// parentTask's VM != vm
+					maxTransferTime = Math.max(maxTransferTime, e.getDataSize() / VM.NETWORK_SPEED);
+			}
+			return ftStartTime - maxTransferTime;
+		}
+	}
+	private double calcVMLeaseEndTime(VM vm){
+		if(this.get(vm)== null || this.get(vm).size() == 0)
+			return VM.LAUNCH_TIME;
+		else{
+			List<Allocation> allocations = this.get(vm);
+			
+			Task lastTask = allocations.get(allocations.size()-1).getTask();
+			double ltFinishTime = allocations.get(allocations.size()-1).getFinishTime(); // finishTime of last task
+			
+			double maxTransferTime = 0;
+			for(Edge e : lastTask.getOutEdges()){
+				Allocation alloc = revMapping.get(e.getDestination());
+				if(alloc == null || alloc.getVM() != vm)		// childTask's VM != vm
+					maxTransferTime = Math.max(maxTransferTime, e.getDataSize() / VM.NETWORK_SPEED);
+			}
+			return ltFinishTime + maxTransferTime;
+		}
+	}
+	//note the difference between VMReadyTime and VMLeaseEndTime.
+	public double getVMReadyTime(VM vm){		//finish time of the last task
+		if(this.get(vm)== null || this.get(vm).size() == 0)
+			return VM.LAUNCH_TIME;
+		else{
+			List<Allocation> allocations = this.get(vm);
+			return allocations.get(allocations.size()-1).getFinishTime(); 
+		}
+	}
+	public HashMap<Task, Allocation> getRevMapping() {
+		return revMapping;
+	}
+
+	//----------------------------------------override-------------------------------------------
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("required cost：" + this.calcCost() + "\trequired time：" + this.calcMakespan()+"\r\n");
+		for(VM vm : this.keySet()){
+			sb.append(vm.toString() + this.get(vm).toString()+"\r\n");
+		}
+		return sb.toString();
+	}
+	
+	// ----------------------------------these three functions only used by ICPCP-------------------
+
+	//--------------------------private classes--------------------------------------------
+	private static class Lease{
+		private double startTime, endTime, cost;
+		private double fixedStartTime = Double.MAX_VALUE, fixedEndTime = -Double.MAX_VALUE;	//see addLeasedVM
+	}
 }
\ No newline at end of file
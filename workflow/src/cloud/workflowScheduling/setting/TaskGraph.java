@@ -0,0 +1,92 @@
+package cloud.workflowScheduling.setting;
+
+import java.util.*;
+
+//int-indexed view of a workflow graph in CSR (compressed sparse row) form.
+//the index of a task is its position in the task list the view is built from (a topological sort);
+//parents and children of task i are parents[parentStart[i] .. parentStart[i+1]-1] and
+//children[childStart[i] .. childStart[i+1]-1], in the same order as its in-edges and out-edges.
+//transfer times are precomputed as getDataSize() / VM.NETWORK_SPEED, i.e., the same values used elsewhere.
+//the arrays returned by getters are shared, and must not be modified
+public class TaskGraph {
+	private final Task[] tasks;
+	private final int[] indexById;
+	private final double[] taskSizes;
+
+	private final int[] parentStart, parents;
+	private final double[] parentTransferTimes;
+	private final int[] childStart, children;
+	private final double[] childTransferTimes;
+
+	TaskGraph(List<Task> order){
+		int n = order.size();
+		tasks = order.toArray(new Task[n]);
+		taskSizes = new double[n];
+		int maxId = -1, inCount = 0, outCount = 0;
+		for(Task t : tasks){
+			maxId = Math.max(maxId, t.getId());
+			inCount += t.getInEdges().size();
+			outCount += t.getOutEdges().size();
+		}
+		indexById = new int[maxId + 1];
+		Arrays.fill(indexById, -1);
+		for(int i = 0; i < n; i++){
+			indexById[tasks[i].getId()] = i;
+			taskSizes[i] = tasks[i].getTaskSize();
+		}
+
+		parentStart = new int[n + 1];
+		parents = new int[inCount];
+		parentTransferTimes = new double[inCount];
+		childStart = new int[n + 1];
+		children = new int[outCount];
+		childTransferTimes = new double[outCount];
+		int k = 0, l = 0;
+		for(int i = 0; i < n; i++){
+			parentStart[i] = k;
+			for(Edge e : tasks[i].getInEdges()){
+				parents[k] = indexById[e.getSource().getId()];
+				parentTransferTimes[k++] = e.getDataSize() / VM.NETWORK_SPEED;
+			}
+			childStart[i] = l;
+			for(Edge e : tasks[i].getOutEdges()){
+				children[l] = indexById[e.getDestination().getId()];
+				childTransferTimes[l++] = e.getDataSize() / VM.NETWORK_SPEED;
+			}
+		}
+		parentStart[n] = k;
+		childStart[n] = l;
+	}
+
+	//--------------------------getters--------------------------------------------
+	public int size(){
+		return tasks.length;
+	}
+	public Task getTask(int index){
+		return tasks[index];
+	}
+	public int indexOf(Task task){
+		return indexById[task.getId()];
+	}
+	public double[] getTaskSizes(){
+		return taskSizes;
+	}
+	public int[] getParentStart(){
+		return parentStart;
+	}
+	public int[] getParents(){
+		return parents;
+	}
+	public double[] getParentTransferTimes(){
+		return parentTransferTimes;
+	}
+	public int[] getChildStart(){
+		return childStart;
+	}
+	public int[] getChildren(){
+		return children;
+	}
+	public double[] getChildTransferTimes(){
+		return childTransferTimes;
+	}
+}
@@ -0,0 +1,226 @@
+package cloud.workflowScheduling.setting;
+
+import java.util.*;
+
+import cloud.workflowScheduling.*;
+
+//allocations on a VM, ordered by start time; it is the allocation list of the VM in Solution, and is only changed by Solution.
+//it is a treap in which each subtree keeps its size, the largest idle slot before its intervals and the earliest start
+//of these slots, so that inserting, detecting conflicts, searching the earliest slot and indexed access take O(log n)
+//expected time; iterating is O(n).
+//the idle slot before an interval starts at the finish time of the previous interval (0 for the first one)
+class Timeline extends AbstractList<Allocation> {
+	private Node root = null;
+	private int seed = 0x2545F491;		//xorshift for priorities; the shape of the treap does not affect results
+
+	@Override
+	public int size(){
+		return size(root);
+	}
+	@Override
+	public Allocation get(int index){
+		if(index < 0 || index >= size())
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		Node x = root;
+		while(true){
+			int leftSize = size(x.left);
+			if(index == leftSize)
+				return x.alloc;
+			if(index < leftSize)
+				x = x.left;
+			else{
+				index -= leftSize + 1;
+				x = x.right;
+			}
+		}
+	}
+	@Override
+	public Iterator<Allocation> iterator(){		//in-order traversal, instead of get(i) for each i
+		final Deque<Node> stack = new ArrayDeque<Node>();
+		for(Node x = root; x != null; x = x.left)
+			stack.push(x);
+		return new Iterator<Allocation>(){
+			public boolean hasNext(){
+				return stack.isEmpty() == false;
+			}
+			public Allocation next(){
+				if(stack.isEmpty())
+					throw new NoSuchElementException();
+				Node node = stack.pop();
+				for(Node x = node.right; x != null; x = x.left)
+					stack.push(x);
+				return node.alloc;
+			}
+			public void remove(){
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	//insert alloc, i.e., [start, finish], and return its position; isEnd denotes whether it is placed after, or before,
+	//intervals with the same start time. Intervals overlapping by more than Evaluate.E are conflicts, while zero-length
+	//ones are allowed
+	int insert(Allocation alloc, boolean isEnd){
+		double start = alloc.getStartTime(), finish = alloc.getFinishTime();
+		Node[] lr = new Node[2];
+		split(root, start, isEnd, lr);
+		Node pred = last(lr[0]), succ = first(lr[1]);
+		if((pred != null && pred.finish > start + Evaluate.E) || (succ != null && finish > succ.start + Evaluate.E)){
+			root = merge(lr[0], lr[1]);
+			throw new RuntimeException("Critical Error: Allocation conflicts");
+		}
+		Node node = new Node(alloc, pred == null ? 0 : pred.finish, nextPriority());
+		if(succ != null){
+			succ.slotStart = finish;
+			refreshFirst(lr[1]);
+		}
+		int position = size(lr[0]);
+		root = merge(merge(lr[0], node), lr[1]);
+		modCount++;
+		return position;
+	}
+
+	//the earliest start time in [EST, LFT - duration] at which an interval of duration fits into an idle slot; -1 if none.
+	//the conditions are the same as those of scanning the slots one by one, in time order. The slot before an interval
+	//can only fit if the interval starts at least duration after EST; of these slots, only the first one (before interval k)
+	//may start before EST, since the others start at the finish times of intervals starting after EST. So slot k is checked
+	//on its own, and the slots after it are searched by their lengths, i.e., maxSlot, which takes O(log n)
+	double searchStartTime(double duration, double EST, double LFT){
+		double slackTime = LFT - EST - duration;
+		double latestSlotStart = EST + slackTime;
+		int k = 0;		//index of the first interval with start - EST >= duration; size() if none
+		Node kNode = null;
+		for(Node x = root; x != null; ){
+			if(x.start - EST >= duration){
+				kNode = x;
+				x = x.left;
+			}else{
+				k += size(x.left) + 1;
+				x = x.right;
+			}
+		}
+		Node node = null;
+		if(kNode != null && latestSlotStart >= kNode.slotStart && kNode.start - Math.max(kNode.slotStart, EST) >= duration)
+			node = kNode;
+		else if(kNode != null)
+			node = firstFit(root, k + 1, duration, latestSlotStart);
+		if(node != null)
+			return Math.max(node.slotStart, EST);
+		double lastFinish = root == null ? 0 : last(root).finish;		//the slot after the last interval is unbounded
+		if(latestSlotStart >= lastFinish)
+			return Math.max(lastFinish, EST);
+		return -1;
+	}
+	//the first interval in x, at or after index from, whose slot is at least duration long and starts no later than
+	//latestSlotStart; subtrees entirely after from are pruned by maxSlot and minSlotStart
+	private static Node firstFit(Node x, int from, double duration, double latestSlotStart){
+		if(x == null || from >= x.size || x.maxSlot < duration || x.minSlotStart > latestSlotStart)
+			return null;
+		int leftSize = size(x.left);
+		if(from < leftSize){
+			Node node = firstFit(x.left, from, duration, latestSlotStart);
+			if(node != null)
+				return node;
+		}
+		if(from <= leftSize && latestSlotStart >= x.slotStart && x.start - x.slotStart >= duration)
+			return x;
+		return firstFit(x.right, Math.max(0, from - leftSize - 1), duration, latestSlotStart);
+	}
+
+	//----------------------------------------treap-------------------------------------------
+	//split x into intervals before (lr[0]) and after (lr[1]) a new interval starting at start
+	private static void split(Node x, double start, boolean isEnd, Node[] lr){
+		if(x == null){
+			lr[0] = lr[1] = null;
+			return;
+		}
+		if(x.start < start || (isEnd && x.start == start)){
+			split(x.right, start, isEnd, lr);
+			x.right = lr[0];
+			lr[0] = x;
+		}else{
+			split(x.left, start, isEnd, lr);
+			x.left = lr[1];
+			lr[1] = x;
+		}
+		x.pull();
+	}
+	private static Node merge(Node a, Node b){
+		if(a == null)
+			return b;
+		if(b == null)
+			return a;
+		if(a.priority > b.priority){
+			a.right = merge(a.right, b);
+			a.pull();
+			return a;
+		}
+		b.left = merge(a, b.left);
+		b.pull();
+		return b;
+	}
+	//update the aggregates on the path to the first node, after its slotStart is changed
+	private static void refreshFirst(Node x){
+		if(x.left != null)
+			refreshFirst(x.left);
+		x.pull();
+	}
+	private static Node first(Node x){
+		if(x != null)
+			while(x.left != null)
+				x = x.left;
+		return x;
+	}
+	private static Node last(Node x){
+		if(x != null)
+			while(x.right != null)
+				x = x.right;
+		return x;
+	}
+	private static int size(Node x){
+		return x == null ? 0 : x.size;
+	}
+	private int nextPriority(){
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return seed;
+	}
+
+	//--------------------------private classes--------------------------------------------
+	private static class Node{
+		private final Allocation alloc;
+		private final double start, finish;		//of alloc when it is inserted
+		private double slotStart;			//start of the idle slot before this interval
+		private final int priority;
+		private Node left, right;
+		//aggregates of the subtree
+		private int size;
+		private double maxSlot;				//the largest start - slotStart
+		private double minSlotStart;
+
+		Node(Allocation alloc, double slotStart, int priority){
+			this.alloc = alloc;
+			this.start = alloc.getStartTime();
+			this.finish = alloc.getFinishTime();
+			this.slotStart = slotStart;
+			this.priority = priority;
+			pull();
+		}
+		void pull(){
+			size = 1;
+			maxSlot = start - slotStart;
+			minSlotStart = slotStart;
+			if(left != null){
+				size += left.size;
+				maxSlot = Math.max(maxSlot, left.maxSlot);
+				minSlotStart = Math.min(minSlotStart, left.minSlotStart);
+			}
+			if(right != null){
+				size += right.size;
+				maxSlot = Math.max(maxSlot, right.maxSlot);
+				minSlotStart = Math.min(minSlotStart, right.minSlotStart);
+			}
+		}
+	}
+}
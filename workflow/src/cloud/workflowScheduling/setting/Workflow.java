@@ -1,288 +1,348 @@
-package cloud.workflowScheduling.setting;
-
-import static java.lang.Math.*;
-
-import java.util.*;
-import javax.xml.parsers.*;
-import org.xml.sax.*;
-import org.xml.sax.helpers.*;
-
-//adjacent list to store workflow graph; 
-//two dummy tasks entry and exit are  at the head and the end of arraylist, respectively
-public class Workflow extends ArrayList<Task>{
-	
-	private static final long serialVersionUID = 1L;
-	private double deadline = Double.MAX_VALUE;
-	private int maxParallel;
-	
-	//only used in reading DAX
-	private HashMap<String, TransferData> transferData = new HashMap<String, TransferData>(); //ǰ᣺ fileNameΪʾ
-	private HashMap<String, Task> nameTaskMapping = new HashMap<String, Task>();
-	
-	public Workflow(String file) {
-		super();
-		Task.resetInternalId();	
-		try {		//readDAX
-			SAXParser sp = SAXParserFactory.newInstance().newSAXParser();
-			sp.parse(new InputSource(file), new MyDAXReader());
-			System.out.println("succeed to read DAX data from " + file);
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-		
-		//-----------add tasks to this workflow: start----------------------
-		for(Task t: nameTaskMapping.values())
-			this.add(t);
-		Task tentry = new Task(("entry"), 0);	
-		Task texit = new Task(("exit"), 0);
-		for(Task t: this){						//add edges to entry and exit
-			if(t.getInEdges().size()==0){
-				Edge e = new Edge(tentry, t);
-				t.getInEdges().add(e);
-				tentry.getOutEdges().add(e);
-			}
-			if(t.getOutEdges().size()==0){
-				Edge e = new Edge(t, texit);
-				t.getOutEdges().add(e);
-				texit.getInEdges().add(e);
-			}
-		}
-		this.add(0, tentry);					//add the entry and exit nodes to the workflows
-		this.add(texit);
-		//-----------add tasks to this workflow: end----------------------
-		
-		bind();
-		topoSort();		// turn to a topological sort
-		calcTaskLevels();
-	}
-	
-	// Bind data flow to control flow
-	private void bind(){
-		Task tentry = this.get(0);
-		Task texit = this.get(this.size() - 1);
-
-		for(TransferData td : transferData.values()){	//Bind data flow to control flow
-			Task source = td.getSource();
-			List<Task> destinations = td.getDestinations();
-			if(source == null){
-				source = tentry;
-				td.setSize(0);		//a setting: transfer time of input data is omitted --- setting to 0
-			}
-			if(destinations == null || destinations.size()==0)	
-				destinations.add(texit);
-			for(Task destination : destinations){
-				boolean flag = true;
-				for(Edge outEdge : source.getOutEdges()){
-					if(outEdge.getDestination() == destination){
-						outEdge.setDataSize(td.getSize());			//bind here
-						flag = false;
-					}
-				}
-				//an annoying problem in some DAX files: a data flow cannot be bound to existing control flows
-				//flag to indicate whether this problem exists
-				if(flag == true){
-					Edge e = new Edge(source, destination);
-					e.setDataSize(td.getSize());
-					source.insertOutEdge(e);
-					destination.insertInEdge(e);
-					System.out.println("**************add a control flow*******************source: "
-							+e.getSource().getName()+"; destination: "+e.getDestination().getName());
-				}
-			}
-		}
-	}
-	
-	// convert the task list of workflow to a topological sort based on Kahn algorithm; 
-	// besides, calculate maximal parallel number and sort edges for each task
-	private void topoSort(){
-		// Empty list that will contain the sorted elements
-		List<Task> topoList = new ArrayList<Task>();	
-		//SSet of all nodes with no incoming edges
-		PriorityQueue<Task> S = new PriorityQueue<Task>(10, new Task.ParallelComparator());		
-		S.add(this.get(0));		
-
-		for(Task task : this)	//set topoCount to 0
-			task.setTopoCount(0);
-		
-		this.maxParallel = -1;
-		while(S.size()>0){
-			maxParallel = Math.max(maxParallel, S.size());
-			Task task = S.poll();				// remove a node n from S
-			topoList.add(task);			// add n to tail of L
-			for(Edge e : task.getOutEdges()){	// for each node m with an edge e from n to m do
-				Task t = e.getDestination();
-				t.setTopoCount(t.getTopoCount()+1);	//remove edge e from the graph--achieved by setting TopoCount here
-				if(t.getTopoCount() == t.getInEdges().size())	//if m has no other incoming edges then
-					S.add(t);					// insert m into S			
-			}
-		}
-		// It is a low bound and a larger one may exists
-		System.out.println("An approximate value for maximum parallel number: " + maxParallel);  
-		
-		Edge.EComparator ecForDestination = new Edge.EComparator(true, topoList);//sort edges for each task
-		Edge.EComparator ecForSource = new Edge.EComparator(false, topoList);
-		for(Task t : this){
-			Collections.sort(t.getInEdges(), ecForSource);
-			Collections.sort(t.getOutEdges(), ecForDestination);
-		}
-		
-		Collections.copy(this, topoList);
-	}
-	
-	//calculate heuristic information of tasks, e.g., bLvel, tLevel 
-	private void calcTaskLevels(){
-		double speed = VM.SPEEDS[VM.FASTEST];
-		
-		for(int j= this.size()-1; j>=0; j--){
-			double bLevel = 0;	
-			double sLevel = 0;
-			Task task = this.get(j);
-			for(Edge outEdge : task.getOutEdges()){
-				Task child = outEdge.getDestination();
-				bLevel = Math.max(bLevel, child.getbLevel() + outEdge.getDataSize() / VM.NETWORK_SPEED);
-				sLevel = Math.max(sLevel, child.getsLevel());
-			}
-			task.setbLevel(bLevel + task.getTaskSize() / speed);
-			task.setsLevel(sLevel + task.getTaskSize() / speed);
-		}
-		
-		for(int j= this.size()-1; j>=0; j--){
-			Task task = this.get(j);
-			double ALAP = this.get(0).getbLevel();		//CPLength
-			for(Edge outEdge : task.getOutEdges()){
-				Task child = outEdge.getDestination();
-				ALAP = Math.min(ALAP, child.getALAP()-outEdge.getDataSize() / VM.NETWORK_SPEED);
-			}
-			task.setALAP(ALAP - task.getTaskSize() / speed);
-		}
-		
-		for(Task task : this){
-			double arrivalTime = 0;
-			for(Edge inEdge : task.getInEdges()){
-				Task parent = inEdge.getSource();
-				arrivalTime = Math.max(arrivalTime, 
-						parent.gettLevel() + parent.getTaskSize() / speed + inEdge.getDataSize() / VM.NETWORK_SPEED);
-			}
-			task.settLevel(arrivalTime);
-		}
-		
-//		Collections.sort(topoList, new Task.TLevelComparator());
-//		System.out.println("topological sort and tlevel");
-//		for(Task t : topoList)
-//			System.out.println(t.getName() +"\t"+t.gettLevel());
-		Collections.sort(this, new Task.BLevelComparator());
-		Collections.reverse(this);
-		System.out.println("topological sort and blevel");
-		for(Task t : this)
-			System.out.println(t.getName() +"\t"+t.getbLevel());
-	}
-	
-	//called by ProLiS and LACO
-	public void calcPURank(double theta){
-		double speed = VM.SPEEDS[VM.FASTEST];
-		for(int j= this.size()-1; j>=0; j--){
-			double pURank = 0;	
-			Task task = this.get(j);
-			for(Edge outEdge : task.getOutEdges()){
-				Task child = outEdge.getDestination();
-				
-				int flag = 1;
-				if(theta != Double.MAX_VALUE){		// if theta = Double.MAX_VALUE, flag = 1
-					double et = child.getTaskSize() / speed;
-					double tt = outEdge.getDataSize() / VM.NETWORK_SPEED;
-					double d = 1-Math.pow(theta, -et / tt);	//紫ʱԽdȡֵԽӽ1
-					if(d<random())
-						flag = 0;
-				}
-				
-				pURank = Math.max(pURank, child.getpURank() + flag * outEdge.getDataSize() / VM.NETWORK_SPEED);
-			}
-			task.setpURank(pURank + task.getTaskSize() / speed);
-		}
-//		Collections.sort(topoList, new Task.PURankComparator());
-//		System.out.println("Topological sort and pURank");
-//		for(Task t : topoList)
-//			System.out.println(t.getName() +"\t"+t.getpURank());
-	}
-	
-	//--------------------------getters&setters--------------------------------------------
-	public double getDeadline(){
-		return deadline;
-	}
-	public void setDeadline(double deadline){
-		this.deadline = deadline;
-	}
-	public int getMaxParallel() {
-		return maxParallel;
-	}
-
-	//--------------------------private classes--------------------------------------------
-	private class MyDAXReader extends DefaultHandler{
-		private Stack<String> tags = new Stack<String>();
-		private String childId;
-		private Task lastTask;
-		public void startElement(String uri, String localName, String qName, Attributes attrs) {
-			if(qName.equals("job")){
-				String id = attrs.getValue("id");
-				if(nameTaskMapping.containsKey(id))		//id conflicts
-					throw new RuntimeException();
-				Task t = new Task(id, Double.parseDouble(attrs.getValue("runtime")));
-				nameTaskMapping.put(id, t);
-				lastTask = t;
-			}else if(qName.equals("uses") && tags.peek().equals("job")){
-				//After reading the element "job", the element "uses" means a trasferData (i.e., data flow)
-				String filename =attrs.getValue("file");
-					
-				long fileSize = Long.parseLong(attrs.getValue("size"));
-				TransferData td = transferData.get(filename);
-				if(td == null){
-					td = new TransferData(filename, fileSize);
-				}
-				if(attrs.getValue("link").equals("input")){
-					td.addDestination(lastTask);
-				}else{									//output
-					td.setSource(lastTask);
-				}
-				transferData.put(filename, td);
-			}else if(qName.equals("child") ){		
-				childId = attrs.getValue("ref");
-			}else if(qName.equals("parent") ){ 
-				//After reading the element "child", the element "parent" means an edge (i.e., control flow)
-				Task child = nameTaskMapping.get(childId);
-				Task parent = nameTaskMapping.get(attrs.getValue("ref"));
-				
-				Edge e = new Edge(parent, child);			//control flow
-				parent.insertOutEdge(e);
-				child.insertInEdge(e);
-			}
-			tags.push(qName);
-		}
-		public void endElement(String uri, String localName,String qName) {
-			tags.pop();
-		}
-	}
-	
-	private class TransferData{		//this class is only used in parsing DAX data
-		private String name;
-		private long size;
-		private Task source;		//used to bind control flow and data flow
-		private List<Task> destinations = new ArrayList<Task>();
-
-		public TransferData(String name, long size) {
-			this.name = name;
-			this.size = size;
-		}
-		
-		//-------------------------------------getters & setter--------------------------------
-		public long getSize() {return size;}
-		public Task getSource() {return source;}
-		public void setSource(Task source) {this.source = source;}
-		public void addDestination(Task t){destinations.add(t);}
-		public List<Task> getDestinations() {return destinations;}
-		public void setSize(long size) {
-			this.size = size;
-		}
-		//-------------------------------------overrides--------------------------------
-		public String toString() {return "TransferData [name=" + name + ", size=" + size + "]";}
-	}
+package cloud.workflowScheduling.setting;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import cloud.workflowScheduling.*;
+import cloud.workflowScheduling.monitor.*;
+
+//adjacent list to store workflow graph; 
+//two dummy tasks entry and exit are  at the head and the end of arraylist, respectively
+public class Workflow extends ArrayList<Task>{
+	
+	private static final long serialVersionUID = 1L;
+	//workflows with at least this number of tasks are sorted, and their levels of tasks computed, in parallel
+	private static final int PARALLEL_THRESHOLD = 10000;
+	private static final int PARALLEL_GRAIN = 256;		//tasks in a leaf task of parallel loops over tasks
+	private int maxParallel;
+	private TaskGraph graph;		//int-indexed view of this workflow, built once the order of tasks is final
+	private volatile PURankSampler puRankSampler;	//see getPURankSampler
+	
+	public Workflow(String file) {
+		super();
+		WorkflowReader reader = WorkflowReader.forFile(file);
+		long startTime = Monitor.startTimer();
+		try {		//read DAX, or the .dag text format
+			reader.read(file);
+			System.out.println("succeed to read workflow data from " + file);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		Monitor.phaseFinished(Phase.PARSE, file, startTime);
+		
+		//-----------add tasks to this workflow: start----------------------
+		for(Task t: reader.getTasks())
+			this.add(t);
+		Task tentry = reader.newTask(("entry"), 0);	
+		Task texit = reader.newTask(("exit"), 0);
+		for(Task t: this){						//add edges to entry and exit
+			if(t.getInEdges().size()==0)
+				reader.addEdge(tentry, t);
+			if(t.getOutEdges().size()==0)
+				reader.addEdge(t, texit);
+		}
+		this.add(0, tentry);					//add the entry and exit nodes to the workflows
+		this.add(texit);
+		//-----------add tasks to this workflow: end----------------------
+		
+		bind(reader);
+		startTime = Monitor.startTimer();
+		topoSort();		// turn to a topological sort
+		Monitor.phaseFinished(Phase.TOPO_SORT, file, startTime);
+		startTime = Monitor.startTimer();
+		calcTaskLevels();
+		Monitor.phaseFinished(Phase.LEVELS, file, startTime);
+		graph = new TaskGraph(this);
+	}
+	
+	//tasks are in the final order, with edges and levels already set; used by WorkflowCache
+	Workflow(Collection<Task> tasks, int maxParallel){
+		super(tasks);
+		this.maxParallel = maxParallel;
+		this.graph = new TaskGraph(this);
+	}
+	
+	// Bind data flow to control flow; each (source, destination) pair is looked up in the edge index of reader
+	private void bind(WorkflowReader reader){
+		Task tentry = this.get(0);
+		Task texit = this.get(this.size() - 1);
+
+		for(WorkflowReader.TransferData td : reader.getTransferData()){	//Bind data flow to control flow
+			Task source = td.getSource();
+			List<Task> destinations = td.getDestinations();
+			if(source == null){
+				source = tentry;
+				td.setSize(0);		//a setting: transfer time of input data is omitted --- setting to 0
+			}
+			if(destinations == null || destinations.size()==0)	
+				destinations.add(texit);
+			for(Task destination : destinations){
+				Edge e = reader.getEdge(source, destination);
+				if(e != null){
+					e.setDataSize(td.getSize());			//bind here
+				}else{
+					//an annoying problem in some DAX files: a data flow cannot be bound to existing control flows
+					e = reader.addEdge(source, destination);
+					e.setDataSize(td.getSize());
+					System.out.println("**************add a control flow*******************source: "
+							+e.getSource().getName()+"; destination: "+e.getDestination().getName());
+				}
+			}
+		}
+	}
+	
+	// convert the task list of workflow to a topological sort based on Kahn algorithm; 
+	// besides, calculate maximal parallel number and sort edges for each task
+	private void topoSort(){
+		List<Task> topoList;
+		final int[] topoIndex = new int[this.size()];	//position of each task in topoList; indexed by task id
+		if(this.size() < PARALLEL_THRESHOLD){
+			// Empty list that will contain the sorted elements
+			topoList = new ArrayList<Task>();	
+			//S←Set of all nodes with no incoming edges
+			PriorityQueue<Task> S = new PriorityQueue<Task>(10, new Task.ParallelComparator());		
+			S.add(this.get(0));		
+	
+			int[] topoCount = new int[this.size()];	//used for topological sort; indexed by task id
+			
+			this.maxParallel = -1;
+			while(S.size()>0){
+				maxParallel = Math.max(maxParallel, S.size());
+				Task task = S.poll();				// remove a node n from S
+				topoList.add(task);			// add n to tail of L
+				for(Edge e : task.getOutEdges()){	// for each node m with an edge e from n to m do
+					Task t = e.getDestination();
+					topoCount[t.getId()]++;	//remove edge e from the graph--achieved by setting TopoCount here
+					if(topoCount[t.getId()] == t.getInEdges().size())	//if m has no other incoming edges then
+						S.add(t);					// insert m into S			
+				}
+			}
+			for(int i = 0; i < topoList.size(); i++)
+				topoIndex[topoList.get(i).getId()] = i;
+		}else
+			topoList = sortByFrontiers(topoIndex);
+		// It is a low bound and a larger one may exists
+		System.out.println("An approximate value for maximum parallel number: " + maxParallel);  
+		
+		final Edge.EComparator ecForDestination = new Edge.EComparator(true, topoIndex);//sort edges for each task
+		final Edge.EComparator ecForSource = new Edge.EComparator(false, topoIndex);
+		if(this.size() < PARALLEL_THRESHOLD){
+			for(Task t : this)
+				t.sortEdges(ecForSource, ecForDestination);
+		}else
+			Parallel.forEach(this.size(), PARALLEL_GRAIN, new Parallel.Body(){
+				public void run(int i){
+					get(i).sortEdges(ecForSource, ecForDestination);
+				}
+			});
+		
+		Collections.copy(this, topoList);
+	}
+	
+	//Kahn algorithm for large workflows, which sorts a frontier (the tasks whose parents are all sorted) at a time.
+	//tasks of a frontier release their children in parallel with atomic counters, and the next frontier is ordered by
+	//the key of Task.ParallelComparator and then by id, so the result does not depend on threads. maxParallel is the width
+	//of the widest frontier, and topoIndex is filled in the same pass
+	private List<Task> sortByFrontiers(int[] topoIndex){
+		int n = this.size();
+		final Task[] tasks = new Task[n];		//indexed by task id
+		for(Task t : this)
+			tasks[t.getId()] = t;
+		final AtomicIntegerArray topoCount = new AtomicIntegerArray(n);
+		final int[] order = new int[n];			//ids of sorted tasks; frontiers are consecutive
+		final AtomicInteger end = new AtomicInteger(1);		//end of the next frontier in order
+		order[0] = this.get(0).getId();
+		
+		this.maxParallel = -1;
+		int from = 0, to = 1;		//the current frontier is order[from .. to-1]
+		while(from < to){
+			maxParallel = Math.max(maxParallel, to - from);
+			final int frontierStart = from;
+			Parallel.forEach(to - from, PARALLEL_GRAIN, new Parallel.Body(){
+				public void run(int i){
+					for(Edge e : tasks[order[frontierStart + i]].getOutEdges()){
+						Task t = e.getDestination();
+						if(topoCount.incrementAndGet(t.getId()) == t.getInEdges().size())
+							order[end.getAndIncrement()] = t.getId();
+					}
+				}
+			});
+			int next = end.get();
+			long[] keys = new long[next - to];		//(-(out-degree - in-degree), id), see Task.ParallelComparator
+			for(int k = to; k < next; k++){
+				Task t = tasks[order[k]];
+				long d = t.getOutEdges().size() - t.getInEdges().size();
+				keys[k - to] = (-d << 32) | order[k];
+			}
+			Arrays.sort(keys);
+			for(int k = to; k < next; k++)
+				order[k] = (int)keys[k - to];
+			from = to;
+			to = next;
+		}
+		
+		List<Task> topoList = new ArrayList<Task>(to);
+		for(int i = 0; i < to; i++){
+			topoList.add(tasks[order[i]]);
+			topoIndex[order[i]] = i;
+		}
+		return topoList;
+	}
+	
+	//calculate heuristic information of tasks, e.g., bLvel, tLevel 
+	private void calcTaskLevels(){
+		TaskGraph g = new TaskGraph(this);		//this is a topological sort here
+		int n = g.size();
+		final Levels levels = new Levels(g);
+		if(n < PARALLEL_THRESHOLD){
+			for(int j= n-1; j>=0; j--)
+				levels.calcBLevel(j);
+			for(int j= n-1; j>=0; j--)
+				levels.calcALAP(j);
+			for(int j = 0; j < n; j++)
+				levels.calcTLevel(j);
+		}else{
+			//tasks in a layer do not depend on each other, as a task is in a deeper layer than its parents
+			int[] layerStart = new int[n + 1], layerTasks = new int[n];
+			int layerCount = calcLayers(g, layerStart, layerTasks);
+			for(int l = layerCount - 1; l >= 0; l--)
+				Parallel.forEach(layerStart[l+1] - layerStart[l], PARALLEL_GRAIN, levels.new Pass(0, layerTasks, layerStart[l]));
+			for(int l = layerCount - 1; l >= 0; l--)
+				Parallel.forEach(layerStart[l+1] - layerStart[l], PARALLEL_GRAIN, levels.new Pass(1, layerTasks, layerStart[l]));
+			for(int l = 0; l < layerCount; l++)
+				Parallel.forEach(layerStart[l+1] - layerStart[l], PARALLEL_GRAIN, levels.new Pass(2, layerTasks, layerStart[l]));
+		}
+		
+		for(int j = 0; j < n; j++){
+			Task task = g.getTask(j);
+			task.setbLevel(levels.bLevels[j]);
+			task.setsLevel(levels.sLevels[j]);
+			task.setALAP(levels.ALAPs[j]);
+			task.settLevel(levels.tLevels[j]);
+		}
+		
+//		Collections.sort(topoList, new Task.TLevelComparator());
+//		System.out.println("topological sort and tlevel：");
+//		for(Task t : topoList)
+//			System.out.println(t.getName() +"\t"+t.gettLevel());
+		Collections.sort(this, new Task.BLevelComparator());
+		Collections.reverse(this);
+	}
+	
+	//group the tasks of g into layers by the length of the longest path from the entry task; the tasks of layer l are
+	//layerTasks[layerStart[l] .. layerStart[l+1]-1], in the order of g. Returns the number of layers
+	private static int calcLayers(TaskGraph g, int[] layerStart, int[] layerTasks){
+		int n = g.size();
+		int[] parentStart = g.getParentStart(), parents = g.getParents();
+		int[] depths = new int[n];
+		int layerCount = 0;
+		for(int j = 0; j < n; j++){
+			int depth = 0;
+			for(int k = parentStart[j]; k < parentStart[j+1]; k++)
+				depth = Math.max(depth, depths[parents[k]] + 1);
+			depths[j] = depth;
+			layerCount = Math.max(layerCount, depth + 1);
+		}
+		Arrays.fill(layerStart, 0);
+		for(int j = 0; j < n; j++)		//counting sort by depth
+			layerStart[depths[j] + 1]++;
+		for(int l = 0; l < layerCount; l++)
+			layerStart[l + 1] += layerStart[l];
+		int[] next = Arrays.copyOf(layerStart, layerCount);
+		for(int j = 0; j < n; j++)
+			layerTasks[next[depths[j]]++] = j;
+		return layerCount;
+	}
+	
+	//levels of tasks indexed by graph index; a level of a task is computed from those of its children (bLevel, sLevel
+	//and ALAP) or its parents (tLevel), so the results do not depend on the order tasks at the same layer are computed
+	private static class Levels{
+		private final TaskGraph g;
+		private final double speed = VM.SPEEDS[VM.FASTEST];
+		private final double[] bLevels, sLevels, ALAPs, tLevels;
+		
+		Levels(TaskGraph g){
+			this.g = g;
+			int n = g.size();
+			bLevels = new double[n];
+			sLevels = new double[n];
+			ALAPs = new double[n];
+			tLevels = new double[n];
+		}
+		void calcBLevel(int j){		//and sLevel
+			int[] childStart = g.getChildStart(), children = g.getChildren();
+			double[] childTT = g.getChildTransferTimes();
+			double bLevel = 0;	
+			double sLevel = 0;
+			for(int k = childStart[j]; k < childStart[j+1]; k++){
+				int child = children[k];
+				bLevel = Math.max(bLevel, bLevels[child] + childTT[k]);
+				sLevel = Math.max(sLevel, sLevels[child]);
+			}
+			bLevels[j] = bLevel + g.getTaskSizes()[j] / speed;
+			sLevels[j] = sLevel + g.getTaskSizes()[j] / speed;
+		}
+		void calcALAP(int j){		//after bLevels of all the tasks
+			int[] childStart = g.getChildStart(), children = g.getChildren();
+			double[] childTT = g.getChildTransferTimes();
+			double ALAP = bLevels[0];		//CPLength
+			for(int k = childStart[j]; k < childStart[j+1]; k++)
+				ALAP = Math.min(ALAP, ALAPs[children[k]] - childTT[k]);
+			ALAPs[j] = ALAP - g.getTaskSizes()[j] / speed;
+		}
+		void calcTLevel(int j){
+			int[] parentStart = g.getParentStart(), parents = g.getParents();
+			double[] parentTT = g.getParentTransferTimes(), taskSizes = g.getTaskSizes();
+			double arrivalTime = 0;
+			for(int k = parentStart[j]; k < parentStart[j+1]; k++){
+				int parent = parents[k];
+				arrivalTime = Math.max(arrivalTime, tLevels[parent] + taskSizes[parent] / speed + parentTT[k]);
+			}
+			tLevels[j] = arrivalTime;
+		}
+		
+		//one of the calculations above (0: bLevel, 1: ALAP, 2: tLevel) for the tasks of a layer
+		private class Pass implements Parallel.Body{
+			private final int kind;
+			private final int[] layerTasks;
+			private final int offset;
+			
+			Pass(int kind, int[] layerTasks, int offset){
+				this.kind = kind;
+				this.layerTasks = layerTasks;
+				this.offset = offset;
+			}
+			public void run(int i){
+				int j = layerTasks[offset + i];
+				if(kind == 0)
+					calcBLevel(j);
+				else if(kind == 1)
+					calcALAP(j);
+				else
+					calcTLevel(j);
+			}
+		}
+	}
+	
+	//called by ProLiS and LACO; returns pURank of tasks, indexed by task id; rnd decides whether a transfer time is counted
+	public double[] calcPURank(double theta, Random rnd){
+		return getPURankSampler(theta).sample(rnd);
+	}
+	//the sampler of the last theta is kept, so repeated runs (e.g., of ProLiS) do not recompute its per-edge constants
+	public PURankSampler getPURankSampler(double theta){
+		PURankSampler sampler = puRankSampler;
+		if(sampler == null || sampler.getTheta() != theta){
+			sampler = new PURankSampler(graph, theta);
+			puRankSampler = sampler;
+		}
+		return sampler;
+	}
+	
+	//--------------------------getters&setters--------------------------------------------
+	public int getMaxParallel() {
+		return maxParallel;
+	}
+	public TaskGraph getGraph() {
+		return graph;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,227 @@
+package cloud.workflowScheduling.setting;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.*;
+
+import cloud.workflowScheduling.monitor.*;
+
+//a compiled workflow is a binary image of a Workflow after parsing, topological sort and calculating task levels;
+//it is written next to the workflow file (file + EXTENSION) the first time the workflow is loaded, and is read into
+//the heap afterwards (not mapped, so that a stale image can be replaced at once, also on Windows). A checksum of the workflow
+//file decides whether the image is stale, and a CRC of the payload (all after the header) detects a damaged image.
+//layout: header (magic, version, checksum, n, m, maxParallel, CRC of payload)
+//		| ids, task sizes, bLevel, tLevel, sLevel, ALAP (per task, in the order of Workflow)
+//		| edge sources, destinations, data sizes | CSR of out-edges | CSR of in-edges | task names
+public class WorkflowCache {
+	public static final String EXTENSION = ".cwf";
+	private static final int MAGIC = 0x43574631;		// "CWF1"
+	private static final int VERSION = 3;		//2: task ids are dense per workflow; 3: CRC of payload
+	private static final int HEADER_SIZE = 36;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	//returns the workflow in file, from its compiled image if the image is up to date
+	public static Workflow load(String file){
+		File source = new File(file);
+		File image = new File(file + EXTENSION);
+		long checksum;
+		try{
+			checksum = checksum(source);
+		}catch(IOException e){
+			return new Workflow(file);		//let the reader report the problem
+		}
+		if(image.exists()){
+			try{
+				long startTime = Monitor.startTimer();
+				Workflow wf = read(image, checksum);
+				if(wf != null){
+					Monitor.phaseFinished(Phase.LOAD, file, startTime);
+					System.out.println("succeed to read compiled workflow from " + image);
+					return wf;
+				}
+			}catch(IOException e){		//a damaged image is simply rebuilt
+				System.out.println("fail to read compiled workflow from " + image + ": " + e.getMessage());
+			}
+		}
+		Workflow wf = new Workflow(file);
+		try{
+			write(wf, image, checksum);
+		}catch(IOException e){
+			System.out.println("fail to write compiled workflow to " + image + ": " + e.getMessage());
+		}
+		return wf;
+	}
+
+	//----------------------------------------read & write-------------------------------------------
+	//returns null if the image does not belong to the current content of the workflow file
+	//throws an IOException if the image is damaged
+	static Workflow read(File image, long checksum) throws IOException{
+		byte[] bytes;
+		RandomAccessFile raf = new RandomAccessFile(image, "r");
+		try{
+			if(raf.length() < HEADER_SIZE || raf.length() > Integer.MAX_VALUE)
+				throw new IOException("corrupted image");
+			bytes = new byte[(int)raf.length()];
+			raf.readFully(bytes);
+		}finally{
+			raf.close();
+		}
+		ByteBuffer buf = ByteBuffer.wrap(bytes);
+		if(buf.getInt() != MAGIC || buf.getInt() != VERSION || buf.getLong() != checksum)
+			return null;
+		int n = buf.getInt(), m = buf.getInt(), maxParallel = buf.getInt();
+		long crc = buf.getLong();
+		//checked before any array is allocated: 6 arrays per task, 2 CSRs and a name length per task, 4 arrays per edge
+		if(n < 0 || m < 0 || n * 44L + m * 16L + (n + 1L + m) * 8L + n * 4L > bytes.length - HEADER_SIZE)
+			throw new IOException("corrupted image");
+		CRC32 payloadCRC = new CRC32();
+		payloadCRC.update(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+		if(payloadCRC.getValue() != crc)
+			throw new IOException("corrupted image");
+		try{
+			int[] ids = getInts(buf, n);
+			double[] taskSizes = getDoubles(buf, n);
+			double[] bLevels = getDoubles(buf, n), tLevels = getDoubles(buf, n);
+			double[] sLevels = getDoubles(buf, n), ALAPs = getDoubles(buf, n);
+			int[] sources = getInts(buf, m), destinations = getInts(buf, m);
+			long[] dataSizes = new long[m];
+			buf.asLongBuffer().get(dataSizes);
+			buf.position(buf.position() + m * 8);
+			int[] outStart = getInts(buf, n + 1), outEdges = getInts(buf, m);
+			int[] inStart = getInts(buf, n + 1), inEdges = getInts(buf, m);
+
+			List<Task> tasks = new ArrayList<Task>(n);
+			for(int i = 0; i < n; i++){
+				int nameLength = buf.getInt();
+				if(nameLength < 0 || nameLength > buf.remaining())
+					throw new IOException("corrupted image");
+				byte[] name = new byte[nameLength];
+				buf.get(name);
+				Task task = new Task(ids[i], new String(name, UTF8), taskSizes[i]);
+				task.setbLevel(bLevels[i]);
+				task.settLevel(tLevels[i]);
+				task.setsLevel(sLevels[i]);
+				task.setALAP(ALAPs[i]);
+				tasks.add(task);
+			}
+			Edge[] edges = new Edge[m];
+			for(int e = 0; e < m; e++){
+				edges[e] = new Edge(tasks.get(sources[e]), tasks.get(destinations[e]));
+				edges[e].setDataSize(dataSizes[e]);
+			}
+			for(int i = 0; i < n; i++){
+				Task task = tasks.get(i);
+				for(int k = outStart[i]; k < outStart[i + 1]; k++)
+					task.insertOutEdge(edges[outEdges[k]]);
+				for(int k = inStart[i]; k < inStart[i + 1]; k++)
+					task.insertInEdge(edges[inEdges[k]]);
+			}
+			return new Workflow(tasks, maxParallel);
+		}catch(RuntimeException e){		//e.g., BufferUnderflowException for a truncated image
+			throw new IOException("corrupted image", e);
+		}
+	}
+
+	static void write(Workflow wf, File image, long checksum) throws IOException{
+		int n = wf.size();
+		Map<Task, Integer> positions = new HashMap<Task, Integer>();
+		Map<Edge, Integer> edgeIds = new HashMap<Edge, Integer>();
+		List<Edge> edges = new ArrayList<Edge>();
+		for(int i = 0; i < n; i++){
+			positions.put(wf.get(i), i);
+			for(Edge e : wf.get(i).getOutEdges()){
+				edgeIds.put(e, edges.size());
+				edges.add(e);
+			}
+		}
+		int m = edges.size();
+		byte[][] names = new byte[n][];
+		int namesLength = 0;
+		for(int i = 0; i < n; i++){
+			names[i] = wf.get(i).getName().getBytes(UTF8);
+			namesLength += 4 + names[i].length;
+		}
+
+		//header, 6 arrays per task, 2 int arrays and 1 long array per edge, 2 CSRs, and names
+		ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + n * 44 + m * 16 + (n + 1 + m) * 8 + namesLength);
+		buf.putInt(MAGIC).putInt(VERSION).putLong(checksum);
+		buf.putInt(n).putInt(m).putInt(wf.getMaxParallel());
+		buf.putLong(0);		//CRC of payload, set below
+		for(Task t : wf)	buf.putInt(t.getId());
+		for(Task t : wf)	buf.putDouble(t.getTaskSize());
+		for(Task t : wf)	buf.putDouble(t.getbLevel());
+		for(Task t : wf)	buf.putDouble(t.gettLevel());
+		for(Task t : wf)	buf.putDouble(t.getsLevel());
+		for(Task t : wf)	buf.putDouble(t.getALAP());
+		for(Edge e : edges)	buf.putInt(positions.get(e.getSource()));
+		for(Edge e : edges)	buf.putInt(positions.get(e.getDestination()));
+		for(Edge e : edges)	buf.putLong(e.getDataSize());
+		int start = 0;								//CSR of out-edges; edges are numbered in this order
+		for(Task t : wf){
+			buf.putInt(start);
+			start += t.getOutEdges().size();
+		}
+		buf.putInt(start);
+		for(int e = 0; e < m; e++)
+			buf.putInt(e);
+		start = 0;									//CSR of in-edges, keeping the order of each in-edge list
+		for(Task t : wf){
+			buf.putInt(start);
+			start += t.getInEdges().size();
+		}
+		buf.putInt(start);
+		for(Task t : wf)
+			for(Edge e : t.getInEdges())
+				buf.putInt(edgeIds.get(e));
+		for(byte[] name : names)
+			buf.putInt(name.length).put(name);
+		CRC32 crc = new CRC32();
+		crc.update(buf.array(), HEADER_SIZE, buf.capacity() - HEADER_SIZE);
+		buf.putLong(HEADER_SIZE - 8, crc.getValue());
+
+		//write to a temporary file first, so that concurrent loaders never see a partial image
+		File tmp = File.createTempFile(image.getName(), ".tmp", image.getAbsoluteFile().getParentFile());
+		try{
+			FileOutputStream out = new FileOutputStream(tmp);
+			try{
+				out.write(buf.array());
+			}finally{
+				out.close();
+			}
+			Files.move(tmp.toPath(), image.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}finally{
+			tmp.delete();
+		}
+	}
+
+	//CRC32 of the content of the workflow file, combined with its length
+	static long checksum(File file) throws IOException{
+		CRC32 crc = new CRC32();
+		byte[] bytes = new byte[64 * 1024];
+		InputStream in = new FileInputStream(file);
+		try{
+			int len;
+			while((len = in.read(bytes)) > 0)
+				crc.update(bytes, 0, len);
+		}finally{
+			in.close();
+		}
+		return file.length() << 32 ^ crc.getValue();
+	}
+
+	private static int[] getInts(ByteBuffer buf, int length){
+		int[] values = new int[length];
+		buf.asIntBuffer().get(values);
+		buf.position(buf.position() + length * 4);
+		return values;
+	}
+	private static double[] getDoubles(ByteBuffer buf, int length){
+		double[] values = new double[length];
+		buf.asDoubleBuffer().get(values);
+		buf.position(buf.position() + length * 8);
+		return values;
+	}
+}
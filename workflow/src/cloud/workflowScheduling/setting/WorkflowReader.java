@@ -0,0 +1,79 @@
+package cloud.workflowScheduling.setting;
+
+import java.util.*;
+
+//base class of the readers used by the constructor of Workflow; it collects tasks, data flows and control flows
+abstract class WorkflowReader {
+
+	protected HashMap<String, TransferData> transferData = new HashMap<String, TransferData>(); //前提： fileName必须可作为标示
+	protected HashMap<String, Task> nameTaskMapping = new HashMap<String, Task>();
+	//index of control flows, keyed by (source id, destination id); used to bind data flow in linear time
+	private HashMap<Long, Edge> edgeIndex = new HashMap<Long, Edge>();
+	private int taskCount = 0;		//task ids are scoped to the workflow being read
+
+	abstract void read(String file) throws Exception;
+
+	//a file ending with ".dag" is read as the text format; otherwise, as DAX (plain or gzip-compressed)
+	static WorkflowReader forFile(String file){
+		if(file.endsWith(".dag"))
+			return new DAGReader();
+		return new DAXReader();
+	}
+
+	Task newTask(String name, double taskSize){
+		return new Task(taskCount++, name, taskSize);
+	}
+
+	//add a control flow; a repeated one is ignored
+	Edge addEdge(Task source, Task destination){
+		Long key = key(source, destination);
+		Edge e = edgeIndex.get(key);
+		if(e == null){
+			e = new Edge(source, destination);
+			source.insertOutEdge(e);
+			destination.insertInEdge(e);
+			edgeIndex.put(key, e);
+		}
+		return e;
+	}
+	Edge getEdge(Task source, Task destination){
+		return edgeIndex.get(key(source, destination));
+	}
+	private static Long key(Task source, Task destination){
+		return ((long)source.getId() << 32) | destination.getId();
+	}
+
+	//-------------------------------------getters--------------------------------
+	Collection<Task> getTasks(){
+		return nameTaskMapping.values();
+	}
+	Collection<TransferData> getTransferData(){
+		return transferData.values();
+	}
+
+	//--------------------------private classes--------------------------------------------
+	static class TransferData{		//this class is only used in parsing workflow files
+		private String name;
+		private long size;
+		private Task source;		//used to bind control flow and data flow
+		private List<Task> destinations = new ArrayList<Task>();
+
+		public TransferData(String name, long size) {
+			this.name = name;
+			this.size = size;
+		}
+
+		//-------------------------------------getters & setter--------------------------------
+		public String getName() {return name;}
+		public long getSize() {return size;}
+		public Task getSource() {return source;}
+		public void setSource(Task source) {this.source = source;}
+		public void addDestination(Task t){destinations.add(t);}
+		public List<Task> getDestinations() {return destinations;}
+		public void setSize(long size) {
+			this.size = size;
+		}
+		//-------------------------------------overrides--------------------------------
+		public String toString() {return "TransferData [name=" + name + ", size=" + size + "]";}
+	}
+}